@@ -0,0 +1,356 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.experiments;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.intellij.openapi.diagnostic.Logger;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.Nullable;
+
+/**
+ * Records which experiment values were seen during an IDE session.
+ *
+ * <p>Each (experiment, value) pair is recorded at most once per session. Records are queued in a
+ * bounded lock-free ring buffer and appended asynchronously to a rolling JSON-lines file, so the
+ * cost on the experiment read path is a volatile read and two hash lookups once a pair was seen.
+ *
+ * <p>Logging is controlled through experiments themselves: {@value #ENABLED_KEY} turns it on,
+ * {@value #SAMPLE_KEY} sets the default sampling percentage and {@code
+ * experiments.exposure.sample.<experiment key>} overrides it for a single experiment.
+ */
+final class ExperimentExposureLogger {
+  private static final Logger logger = Logger.getInstance(ExperimentExposureLogger.class);
+
+  static final String ENABLED_KEY = "experiments.exposure.logging";
+  static final String SAMPLE_KEY = "experiments.exposure.sample";
+
+  private static final String FILE_NAME = "experiment_exposures.jsonl";
+  // Stands in for a null value (the experiment's default), which concurrent sets can't hold.
+  private static final String DEFAULT_VALUE = "\0default";
+
+  private static final int DEFAULT_CAPACITY = 1024;
+  private static final long DEFAULT_MAX_FILE_BYTES = 1024 * 1024;
+  private static final int DEFAULT_MAX_ROLLED_FILES = 3;
+
+  private final Path directory;
+  private final Executor flushExecutor;
+  private final String sessionId;
+  private final long maxFileBytes;
+  private final int maxRolledFiles;
+
+  private final AtomicReferenceArray<Exposure> ring;
+  private final int mask;
+  private final AtomicLong tail = new AtomicLong();
+  // Only advanced by the flushing thread, which holds this object's lock.
+  private volatile long head;
+  private final AtomicBoolean flushScheduled = new AtomicBoolean();
+  private final AtomicLong dropped = new AtomicLong();
+
+  private final Map<String, Set<String>> seen = new ConcurrentHashMap<>();
+  private volatile Config config = Config.DISABLED;
+
+  ExperimentExposureLogger(Path directory, Executor flushExecutor) {
+    this(
+        directory,
+        flushExecutor,
+        UUID.randomUUID().toString(),
+        DEFAULT_CAPACITY,
+        DEFAULT_MAX_FILE_BYTES,
+        DEFAULT_MAX_ROLLED_FILES);
+  }
+
+  @VisibleForTesting
+  ExperimentExposureLogger(
+      Path directory,
+      Executor flushExecutor,
+      String sessionId,
+      int capacity,
+      long maxFileBytes,
+      int maxRolledFiles) {
+    this.directory = directory;
+    this.flushExecutor = flushExecutor;
+    this.sessionId = sessionId;
+    this.maxFileBytes = maxFileBytes;
+    this.maxRolledFiles = maxRolledFiles;
+    int size = Integer.highestOneBit(Math.max(2, capacity - 1) << 1);
+    this.ring = new AtomicReferenceArray<>(size);
+    this.mask = size - 1;
+  }
+
+  /** Updates the logging configuration from the current set of experiment values. */
+  void configure(Map<String, String> experiments) {
+    config = Config.from(experiments);
+  }
+
+  /** Records that {@code value} was returned for the experiment {@code key}. */
+  void onExposure(String key, @Nullable String value) {
+    Config config = this.config;
+    if (!config.enabled) {
+      return;
+    }
+    String seenValue = value != null ? value : DEFAULT_VALUE;
+    Set<String> values = seen.get(key);
+    if (values != null && values.contains(seenValue)) {
+      return;
+    }
+    if (!seen.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(seenValue)) {
+      return;
+    }
+    if (!config.isSampled(sessionId, key)) {
+      return;
+    }
+    if (offer(new Exposure(System.currentTimeMillis(), key, value)) && isHalfFull()) {
+      scheduleFlush();
+    }
+  }
+
+  /** Schedules an asynchronous flush, unless one is already pending. */
+  void scheduleFlush() {
+    if (flushScheduled.compareAndSet(false, true)) {
+      flushExecutor.execute(
+          () -> {
+            flushScheduled.set(false);
+            flush();
+          });
+    }
+  }
+
+  /** Synchronously appends all queued exposures to the log file. */
+  synchronized void flush() {
+    long start = head;
+    if (tail.get() == start && dropped.get() == 0) {
+      return;
+    }
+    StringBuilder out = new StringBuilder();
+    long position = start;
+    while (true) {
+      int index = (int) (position & mask);
+      Exposure exposure = ring.get(index);
+      if (exposure == null) {
+        // either empty, or a producer claimed the slot but hasn't published yet
+        break;
+      }
+      ring.set(index, null);
+      exposure.appendJson(sessionId, out);
+      position++;
+    }
+    head = position;
+    long droppedCount = dropped.getAndSet(0);
+    if (droppedCount > 0) {
+      logger.warn("Dropped " + droppedCount + " experiment exposure records, buffer was full");
+    }
+    if (out.length() > 0) {
+      write(out);
+    }
+  }
+
+  private boolean offer(Exposure exposure) {
+    while (true) {
+      long position = tail.get();
+      if (position - head >= ring.length()) {
+        dropped.incrementAndGet();
+        scheduleFlush();
+        return false;
+      }
+      if (tail.compareAndSet(position, position + 1)) {
+        ring.set((int) (position & mask), exposure);
+        return true;
+      }
+    }
+  }
+
+  private boolean isHalfFull() {
+    return tail.get() - head >= ring.length() / 2;
+  }
+
+  private void write(CharSequence lines) {
+    try {
+      Files.createDirectories(directory);
+      Path file = directory.resolve(FILE_NAME);
+      if (Files.exists(file) && Files.size(file) >= maxFileBytes) {
+        roll(file);
+      }
+      try (Writer writer =
+          Files.newBufferedWriter(
+              file,
+              StandardCharsets.UTF_8,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.APPEND)) {
+        writer.append(lines);
+      }
+    } catch (IOException e) {
+      logger.warn("Could not write experiment exposures to " + directory, e);
+    }
+  }
+
+  private void roll(Path file) throws IOException {
+    Files.deleteIfExists(rolledFile(maxRolledFiles));
+    for (int i = maxRolledFiles - 1; i >= 1; i--) {
+      Path from = rolledFile(i);
+      if (Files.exists(from)) {
+        Files.move(from, rolledFile(i + 1), StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+    Files.move(file, rolledFile(1), StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  @VisibleForTesting
+  Path rolledFile(int index) {
+    return directory.resolve(FILE_NAME + "." + index);
+  }
+
+  @VisibleForTesting
+  Path logFile() {
+    return directory.resolve(FILE_NAME);
+  }
+
+  /** A single exposure record. */
+  private static final class Exposure {
+    private final long timestamp;
+    private final String key;
+    @Nullable private final String value;
+
+    Exposure(long timestamp, String key, @Nullable String value) {
+      this.timestamp = timestamp;
+      this.key = key;
+      this.value = value;
+    }
+
+    void appendJson(String sessionId, StringBuilder out) {
+      out.append("{\"time\":").append(timestamp).append(",\"session\":");
+      appendString(sessionId, out);
+      out.append(",\"key\":");
+      appendString(key, out);
+      out.append(",\"value\":");
+      if (value == null) {
+        out.append("null");
+      } else {
+        appendString(value, out);
+      }
+      out.append("}\n");
+    }
+
+    private static void appendString(String s, StringBuilder out) {
+      out.append('"');
+      for (int i = 0; i < s.length(); i++) {
+        char c = s.charAt(i);
+        switch (c) {
+          case '"':
+            out.append("\\\"");
+            break;
+          case '\\':
+            out.append("\\\\");
+            break;
+          case '\n':
+            out.append("\\n");
+            break;
+          case '\r':
+            out.append("\\r");
+            break;
+          case '\t':
+            out.append("\\t");
+            break;
+          default:
+            if (c < 0x20) {
+              out.append(String.format("\\u%04x", (int) c));
+            } else {
+              out.append(c);
+            }
+        }
+      }
+      out.append('"');
+    }
+  }
+
+  /** Logging configuration, derived from experiment values on every refresh. */
+  private static final class Config {
+    static final Config DISABLED = new Config(false, 0, ImmutableMap.of());
+
+    private static final String SAMPLE_PREFIX = SAMPLE_KEY + ".";
+
+    final boolean enabled;
+    private final int defaultSamplePercent;
+    private final ImmutableMap<String, Integer> samplePercents;
+
+    private Config(
+        boolean enabled, int defaultSamplePercent, ImmutableMap<String, Integer> samplePercents) {
+      this.enabled = enabled;
+      this.defaultSamplePercent = defaultSamplePercent;
+      this.samplePercents = samplePercents;
+    }
+
+    static Config from(Map<String, String> experiments) {
+      if (!"1".equals(experiments.get(ENABLED_KEY))) {
+        return DISABLED;
+      }
+      int defaultPercent = parsePercent(experiments.get(SAMPLE_KEY), 100);
+      ImmutableMap.Builder<String, Integer> percents = ImmutableMap.builder();
+      for (Map.Entry<String, String> entry : experiments.entrySet()) {
+        if (entry.getKey().startsWith(SAMPLE_PREFIX)) {
+          percents.put(
+              entry.getKey().substring(SAMPLE_PREFIX.length()),
+              parsePercent(entry.getValue(), defaultPercent));
+        }
+      }
+      return new Config(true, defaultPercent, percents.build());
+    }
+
+    /**
+     * Whether exposures of the given experiment are logged in this session. The decision is stable
+     * for a (session, experiment) pair, so a sampled-in session logs every value it sees.
+     */
+    boolean isSampled(String sessionId, String key) {
+      int percent = samplePercents.getOrDefault(key, defaultSamplePercent);
+      if (percent >= 100) {
+        return true;
+      }
+      if (percent <= 0) {
+        return false;
+      }
+      return Math.floorMod(31 * sessionId.hashCode() + key.hashCode(), 100) < percent;
+    }
+
+    private static int parsePercent(@Nullable String value, int defaultValue) {
+      if (value == null) {
+        return defaultValue;
+      }
+      try {
+        return Integer.parseInt(value.trim());
+      } catch (NumberFormatException e) {
+        logger.warn("Could not parse exposure sampling percentage: " + value, e);
+        return defaultValue;
+      }
+    }
+  }
+}
@@ -23,15 +23,20 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.idea.common.util.MorePlatformUtils;
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.PathManager;
 import com.intellij.openapi.components.ApplicationComponent;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.util.Alarm;
 import com.intellij.util.Alarm.ThreadToUse;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
@@ -52,11 +57,23 @@ public class ExperimentServiceImpl implements ApplicationComponent, ExperimentSe
       new Alarm(ThreadToUse.POOLED_THREAD, ApplicationManager.getApplication());
   private final List<ExperimentLoader> services;
   private final Supplier<String> channelSupplier;
+  // Whether to refresh synchronously whenever the last experiment scope ends, instead of deferring
+  // refreshes to the pooled alarm thread. Only unit tests want this by default.
+  private final boolean refreshSynchronously;
   private final AtomicInteger experimentScopeCounter = new AtomicInteger(0);
+  // Guards publishing snapshots and entering the first experiment scope, so that a refresh never
+  // lands while a scope is active. Snapshots are loaded outside of it.
+  private final Object refreshLock = new Object();
+  // Orders loaded snapshots, so that an older snapshot never replaces a newer one.
+  private final AtomicLong loadSequence = new AtomicLong();
+  private final AtomicLong refreshRequests = new AtomicLong();
+  private final AtomicBoolean refreshDeferred = new AtomicBoolean();
 
-  private volatile Map<String, String> experiments = ImmutableMap.of();
-  private volatile Map<String, List<ExperimentValue>> overrides = ImmutableMap.of();
+  private volatile Snapshot snapshot = Snapshot.EMPTY;
   private final Map<String, Experiment> queriedExperiments = new ConcurrentHashMap<>();
+  private final ExperimentExposureLogger exposureLogger =
+      new ExperimentExposureLogger(
+          Path.of(PathManager.getLogPath()), AppExecutorUtil.getAppExecutorService());
 
   ExperimentServiceImpl() {
     this(MorePlatformUtils::getIdeChannel, ExperimentLoader.EP_NAME.getExtensions());
@@ -69,9 +86,18 @@ public class ExperimentServiceImpl implements ApplicationComponent, ExperimentSe
 
   @VisibleForTesting
   ExperimentServiceImpl(Supplier<String> channelSupplier, ExperimentLoader... loaders) {
+    this(channelSupplier, ApplicationManager.getApplication().isUnitTestMode(), loaders);
+  }
+
+  @VisibleForTesting
+  ExperimentServiceImpl(
+      Supplier<String> channelSupplier,
+      boolean refreshSynchronously,
+      ExperimentLoader... loaders) {
     services = ImmutableList.copyOf(loaders);
     this.channelSupplier = channelSupplier;
-    if (ApplicationManager.getApplication().isUnitTestMode()) {
+    this.refreshSynchronously = refreshSynchronously;
+    if (refreshSynchronously) {
       refreshExperiments();
     }
   }
@@ -88,9 +114,22 @@ public class ExperimentServiceImpl implements ApplicationComponent, ExperimentSe
     scheduleRefresh(REFRESH_FREQUENCY);
   }
 
+  @Override
+  public void disposeComponent() {
+    exposureLogger.flush();
+  }
+
   @Nullable
   private String getExperiment(Experiment experiment) {
+    String value = lookupExperiment(experiment);
+    exposureLogger.onExposure(experiment.getKey(), value);
+    return value;
+  }
+
+  @Nullable
+  private String lookupExperiment(Experiment experiment) {
     queriedExperiments.putIfAbsent(experiment.getKey(), experiment);
+    Map<String, String> experiments = snapshot.experiments;
     if (experiments.containsKey(experiment.getKey())) {
       return experiments.get(experiment.getKey());
     }
@@ -126,9 +165,18 @@ public class ExperimentServiceImpl implements ApplicationComponent, ExperimentSe
 
   @Override
   public void startExperimentScope() {
-    if (experimentScopeCounter.getAndIncrement() == 0) {
+    while (true) {
       // synchronously update experiments and keep them fixed for the duration of the scope
-      refreshExperiments();
+      Snapshot loaded = experimentScopeCounter.get() == 0 ? loadSnapshot() : null;
+      synchronized (refreshLock) {
+        if (experimentScopeCounter.get() > 0 || loaded != null) {
+          if (experimentScopeCounter.getAndIncrement() == 0) {
+            publish(loaded);
+          }
+          return;
+        }
+      }
+      // the last scope ended after we checked, load experiments for the new one
     }
   }
 
@@ -136,8 +184,35 @@ public class ExperimentServiceImpl implements ApplicationComponent, ExperimentSe
   public void endExperimentScope() {
     int counter = experimentScopeCounter.decrementAndGet();
     logger.assertTrue(counter >= 0);
-    if (counter <= 0 && ApplicationManager.getApplication().isUnitTestMode()) {
-      refreshExperiments();
+    if (counter > 0) {
+      return;
+    }
+    if (refreshSynchronously) {
+      refreshOutsideScope();
+    } else if (refreshDeferred.getAndSet(false)) {
+      // a refresh was skipped while the scope was active, catch up on it now. Count it as a
+      // request, so a concurrently finishing refresh task doesn't reschedule over it.
+      refreshRequests.incrementAndGet();
+      scheduleRefresh(Duration.ZERO);
+    }
+  }
+
+  /**
+   * Refreshes the experiments unless an experiment scope is active.
+   *
+   * @return whether the experiments were refreshed
+   */
+  private boolean refreshOutsideScope() {
+    if (experimentScopeCounter.get() > 0) {
+      return false;
+    }
+    Snapshot loaded = loadSnapshot();
+    synchronized (refreshLock) {
+      if (experimentScopeCounter.get() > 0) {
+        return false;
+      }
+      publish(loaded);
+      return true;
     }
   }
 
@@ -150,12 +225,19 @@ public class ExperimentServiceImpl implements ApplicationComponent, ExperimentSe
 
     alarm.addRequest(
         () -> {
+          long requests = refreshRequests.get();
           try {
-            if (experimentScopeCounter.get() <= 0) {
-              refreshExperiments();
+            // mark the refresh as deferred before checking for scopes, so a scope ending
+            // concurrently is guaranteed to see it
+            refreshDeferred.set(true);
+            if (refreshOutsideScope()) {
+              refreshDeferred.set(false);
             }
+            exposureLogger.scheduleFlush();
           } finally {
-            scheduleRefresh(REFRESH_FREQUENCY);
+            // don't let the periodic reschedule swallow a change notified while we were refreshing
+            scheduleRefresh(
+                refreshRequests.get() != requests ? Duration.ZERO : REFRESH_FREQUENCY);
           }
         },
         delay.toMillis());
@@ -163,10 +245,27 @@ public class ExperimentServiceImpl implements ApplicationComponent, ExperimentSe
 
   @Override
   public void notifyExperimentsChanged() {
+    refreshRequests.incrementAndGet();
     scheduleRefresh(Duration.ZERO);
   }
 
   private void refreshExperiments() {
+    Snapshot loaded = loadSnapshot();
+    synchronized (refreshLock) {
+      publish(loaded);
+    }
+  }
+
+  /** Publishes the given snapshot, unless a snapshot loaded later was already published. */
+  private void publish(Snapshot loaded) {
+    if (loaded.sequence > snapshot.sequence) {
+      snapshot = loaded;
+      exposureLogger.configure(loaded.experiments);
+    }
+  }
+
+  private Snapshot loadSnapshot() {
+    long sequence = loadSequence.incrementAndGet();
     List<ExperimentValue> values =
         services.stream()
             .flatMap(
@@ -176,17 +275,19 @@ public class ExperimentServiceImpl implements ApplicationComponent, ExperimentSe
                             e -> ExperimentValue.create(service.getId(), e.getKey(), e.getValue())))
             .collect(Collectors.toUnmodifiableList());
 
-    experiments =
+    Map<String, String> experiments =
         values.stream()
             .collect(
                 Collectors.toUnmodifiableMap(
                     ExperimentValue::key, ExperimentValue::value, (first, second) -> first));
 
-    overrides =
+    Map<String, List<ExperimentValue>> overrides =
         ImmutableMap.copyOf(
             values.stream()
                 .collect(
                     Collectors.groupingBy(ExperimentValue::key, Collectors.toUnmodifiableList())));
+
+    return new Snapshot(sequence, experiments, overrides);
   }
 
   @Override
@@ -196,6 +297,24 @@ public class ExperimentServiceImpl implements ApplicationComponent, ExperimentSe
 
   @Override
   public List<ExperimentValue> getOverrides(String key) {
-    return overrides.get(key);
+    return snapshot.overrides.get(key);
+  }
+
+  /** The experiment values and overrides of a single refresh, published together. */
+  private static final class Snapshot {
+    static final Snapshot EMPTY = new Snapshot(0, ImmutableMap.of(), ImmutableMap.of());
+
+    final long sequence;
+    final Map<String, String> experiments;
+    final Map<String, List<ExperimentValue>> overrides;
+
+    Snapshot(
+        long sequence,
+        Map<String, String> experiments,
+        Map<String, List<ExperimentValue>> overrides) {
+      this.sequence = sequence;
+      this.experiments = experiments;
+      this.overrides = overrides;
+    }
   }
 }
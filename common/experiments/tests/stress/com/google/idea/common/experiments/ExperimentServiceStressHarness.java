@@ -0,0 +1,364 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.experiments;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A multi-threaded harness hammering {@link ExperimentServiceImpl} with concurrent reads, scopes,
+ * refreshes and change notifications.
+ *
+ * <p>All experiment values come from a single loader which stamps every key with the same
+ * generation number on each load. That makes the following invariants checkable from the outside:
+ *
+ * <ul>
+ *   <li>all values and overrides read inside an experiment scope come from the same generation,
+ *       and don't change until the scope ends (no torn snapshots, no refresh inside a scope)
+ *   <li>the generation seen by a single reader never goes backwards (no stale snapshot replacing a
+ *       newer one)
+ *   <li>a change notified outside of a scope eventually becomes visible (no lost refreshes)
+ * </ul>
+ *
+ * <p>The service is set up like in production: refreshes run on the alarm thread and are deferred
+ * while a scope is active, instead of running synchronously as they do in unit test mode.
+ */
+final class ExperimentServiceStressHarness {
+
+  static final StringExperiment FIRST = new StringExperiment("stress.first");
+  static final StringExperiment SECOND = new StringExperiment("stress.second");
+
+  private static final Duration NOTIFY_TIMEOUT = Duration.ofSeconds(10);
+  private static final long SCOPE_GAP_NANOS = 100_000;
+
+  /** Thread counts and duration of a single run. */
+  static final class Scenario {
+    final String name;
+    final int readers;
+    final int scopes;
+    final int notifiers;
+    final Duration duration;
+
+    Scenario(String name, int readers, int scopes, int notifiers, Duration duration) {
+      this.name = name;
+      this.readers = readers;
+      this.scopes = scopes;
+      this.notifiers = notifiers;
+      this.duration = duration;
+    }
+  }
+
+  /** Metrics and invariant violations of a single run. */
+  static final class Result {
+    final Scenario scenario;
+    final long reads;
+    final long refreshes;
+    final long scopes;
+    final long notifications;
+    final long maxNotifyLatencyMillis;
+    final double seconds;
+    final ImmutableList<String> violations;
+
+    private Result(
+        Scenario scenario,
+        long reads,
+        long refreshes,
+        long scopes,
+        long notifications,
+        long maxNotifyLatencyMillis,
+        double seconds,
+        List<String> violations) {
+      this.scenario = scenario;
+      this.reads = reads;
+      this.refreshes = refreshes;
+      this.scopes = scopes;
+      this.notifications = notifications;
+      this.maxNotifyLatencyMillis = maxNotifyLatencyMillis;
+      this.seconds = seconds;
+      this.violations = ImmutableList.copyOf(violations);
+    }
+
+    double readsPerSecond() {
+      return reads / seconds;
+    }
+
+    double refreshesPerSecond() {
+      return refreshes / seconds;
+    }
+
+    double scopesPerSecond() {
+      return scopes / seconds;
+    }
+
+    double notificationsPerSecond() {
+      return notifications / seconds;
+    }
+
+    String toJson() {
+      return String.format(
+          Locale.ROOT,
+          "{\"scenario\":\"%s\",\"readers\":%d,\"scopeThreads\":%d,\"notifiers\":%d,"
+              + "\"seconds\":%.3f,\"readsPerSec\":%.1f,\"refreshesPerSec\":%.1f,"
+              + "\"scopesPerSec\":%.1f,\"notificationsPerSec\":%.1f,"
+              + "\"maxNotifyLatencyMs\":%d,\"violations\":%d}",
+          scenario.name,
+          scenario.readers,
+          scenario.scopes,
+          scenario.notifiers,
+          seconds,
+          readsPerSecond(),
+          refreshesPerSecond(),
+          scopesPerSecond(),
+          notificationsPerSecond(),
+          maxNotifyLatencyMillis,
+          violations.size());
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          Locale.ROOT,
+          "%-8s reads/s=%,12.0f refreshes/s=%,10.1f scopes/s=%,10.1f notifications/s=%,8.1f"
+              + " max notify latency=%dms violations=%d",
+          scenario.name,
+          readsPerSecond(),
+          refreshesPerSecond(),
+          scopesPerSecond(),
+          notificationsPerSecond(),
+          maxNotifyLatencyMillis,
+          violations.size());
+    }
+  }
+
+  private final GenerationLoader loader = new GenerationLoader();
+  private final ExperimentServiceImpl service =
+      new ExperimentServiceImpl(
+          () -> "stress", /* refreshSynchronously= */ false, loader, new ShadowedLoader());
+
+  private final AtomicBoolean stopped = new AtomicBoolean();
+  private final AtomicLong reads = new AtomicLong();
+  private final AtomicLong scopes = new AtomicLong();
+  private final AtomicLong notifications = new AtomicLong();
+  private final AtomicLong maxNotifyLatencyMillis = new AtomicLong();
+  private final ConcurrentLinkedQueue<String> violations = new ConcurrentLinkedQueue<>();
+
+  private ExperimentServiceStressHarness() {
+    service.initComponent();
+  }
+
+  static Result run(Scenario scenario) throws InterruptedException {
+    return new ExperimentServiceStressHarness().doRun(scenario);
+  }
+
+  private Result doRun(Scenario scenario) throws InterruptedException {
+    List<Thread> threads = new ArrayList<>();
+    CountDownLatch start = new CountDownLatch(1);
+    for (int i = 0; i < scenario.readers; i++) {
+      threads.add(newThread("reader-" + i, start, this::read));
+    }
+    for (int i = 0; i < scenario.scopes; i++) {
+      threads.add(newThread("scope-" + i, start, this::scope));
+    }
+    for (int i = 0; i < scenario.notifiers; i++) {
+      threads.add(newThread("notifier-" + i, start, this::notifyChanged));
+    }
+    threads.forEach(Thread::start);
+
+    long refreshesBefore = loader.loads.get();
+    long startNanos = System.nanoTime();
+    start.countDown();
+    Thread.sleep(scenario.duration.toMillis());
+    stopped.set(true);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    double seconds = (System.nanoTime() - startNanos) / 1e9;
+    long refreshes = loader.loads.get() - refreshesBefore;
+
+    // once everything is quiet, a single notification must still be picked up
+    long generation = loader.generation.incrementAndGet();
+    service.notifyExperimentsChanged();
+    if (!awaitGeneration(generation)) {
+      violations.add("lost refresh: generation " + generation + " never became visible");
+    }
+
+    return new Result(
+        scenario,
+        reads.get(),
+        refreshes,
+        scopes.get(),
+        notifications.get(),
+        maxNotifyLatencyMillis.get(),
+        seconds,
+        new ArrayList<>(violations));
+  }
+
+  private Thread newThread(String name, CountDownLatch start, Runnable body) {
+    Thread thread =
+        new Thread(
+            () -> {
+              try {
+                start.await();
+                body.run();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              } catch (RuntimeException | AssertionError e) {
+                violations.add(name + " failed: " + e);
+              }
+            },
+            "ExperimentServiceStress-" + name);
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  private void read() {
+    long lastSeen = -1;
+    long count = 0;
+    while (!stopped.get()) {
+      long generation = readGeneration(FIRST);
+      if (generation < lastSeen) {
+        violations.add("stale snapshot: read generation " + generation + " after " + lastSeen);
+      }
+      lastSeen = generation;
+      count++;
+    }
+    reads.addAndGet(count);
+  }
+
+  private void scope() {
+    long count = 0;
+    long readCount = 0;
+    while (!stopped.get()) {
+      service.startExperimentScope();
+      try {
+        long first = readGeneration(FIRST);
+        Thread.yield();
+        long second = readGeneration(SECOND);
+        List<ExperimentValue> overrides = service.getOverrides(FIRST.getKey());
+        long again = readGeneration(FIRST);
+        readCount += 3;
+        if (first != second || first != again) {
+          violations.add(
+              String.format(
+                  "torn snapshot in scope: %s=%d, %s=%d, then %s=%d",
+                  FIRST.getKey(), first, SECOND.getKey(), second, FIRST.getKey(), again));
+        }
+        if (overrides == null
+            || overrides.size() != 2
+            || Long.parseLong(overrides.get(0).value()) != first) {
+          violations.add("torn overrides in scope: " + overrides + " for generation " + first);
+        }
+      } finally {
+        service.endExperimentScope();
+      }
+      count++;
+      // leave a gap between scopes, otherwise overlapping scopes could hold off refreshes forever
+      LockSupport.parkNanos(SCOPE_GAP_NANOS);
+    }
+    scopes.addAndGet(count);
+    reads.addAndGet(readCount);
+  }
+
+  private void notifyChanged() {
+    long count = 0;
+    while (!stopped.get()) {
+      long generation = loader.generation.incrementAndGet();
+      long startNanos = System.nanoTime();
+      service.notifyExperimentsChanged();
+      count++;
+      if (!awaitGeneration(generation)) {
+        if (!stopped.get()) {
+          violations.add("lost refresh: generation " + generation + " not visible in time");
+        }
+        break;
+      }
+      long latencyMillis = (System.nanoTime() - startNanos) / 1_000_000;
+      maxNotifyLatencyMillis.accumulateAndGet(latencyMillis, Math::max);
+    }
+    notifications.addAndGet(count);
+  }
+
+  private boolean awaitGeneration(long generation) {
+    long deadline = System.nanoTime() + NOTIFY_TIMEOUT.toNanos();
+    while (System.nanoTime() < deadline) {
+      if (readGeneration(FIRST) >= generation) {
+        return true;
+      }
+      try {
+        Thread.sleep(1);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+    return false;
+  }
+
+  private long readGeneration(StringExperiment experiment) {
+    String value = service.getExperimentString(experiment, "-1");
+    return Long.parseLong(value);
+  }
+
+  /** Stamps all experiments with the current generation. */
+  private static final class GenerationLoader implements ExperimentLoader {
+    final AtomicLong generation = new AtomicLong();
+    final AtomicLong loads = new AtomicLong();
+
+    @Override
+    public ImmutableMap<String, String> getExperiments() {
+      loads.incrementAndGet();
+      String value = String.valueOf(generation.get());
+      return ImmutableMap.of(FIRST.getKey(), value, SECOND.getKey(), value);
+    }
+
+    @Override
+    public void initialize() {}
+
+    @Override
+    public String getId() {
+      return "generation";
+    }
+  }
+
+  /** A lower priority loader, so that every snapshot has two overrides for {@link #FIRST}. */
+  private static final class ShadowedLoader implements ExperimentLoader {
+    @Override
+    public Map<String, String> getExperiments() {
+      return ImmutableMap.of(FIRST.getKey(), "0");
+    }
+
+    @Override
+    public void initialize() {}
+
+    @Override
+    public String getId() {
+      return "shadowed";
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.experiments;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import com.google.idea.common.experiments.ExperimentServiceStressHarness.Result;
+import com.google.idea.common.experiments.ExperimentServiceStressHarness.Scenario;
+import com.google.idea.testing.IntellijRule;
+import com.intellij.openapi.diagnostic.Logger;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Stress tests for {@link ExperimentServiceImpl}, see {@link ExperimentServiceStressHarness}.
+ *
+ * <p>The duration of each scenario can be changed with {@code
+ * --jvmopt=-Dexperiments.stress.seconds=N}. Metrics are logged, and written as JSON to the test's
+ * undeclared outputs when running under Bazel.
+ */
+@RunWith(JUnit4.class)
+public class ExperimentServiceStressTest {
+  private static final Logger logger = Logger.getInstance(ExperimentServiceStressTest.class);
+
+  private static final Duration DURATION =
+      Duration.ofSeconds(Integer.getInteger("experiments.stress.seconds", 3));
+  // Reads never block, so refreshes and scopes must not slow them down by more than this factor.
+  private static final double MAX_READ_SLOWDOWN = 10;
+
+  @Rule public IntellijRule intellij = new IntellijRule();
+
+  @Test
+  public void testConcurrentReadsScopesAndRefreshes() throws Exception {
+    int readers = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+    Result baseline =
+        ExperimentServiceStressHarness.run(new Scenario("reads", readers, 0, 0, DURATION));
+    Result mixed =
+        ExperimentServiceStressHarness.run(new Scenario("mixed", readers, 2, 1, DURATION));
+    report(baseline, mixed);
+
+    assertWithMessage("violations").that(baseline.violations).isEmpty();
+    assertWithMessage("violations").that(mixed.violations).isEmpty();
+    assertThat(mixed.refreshes).isGreaterThan(0L);
+    assertThat(mixed.scopes).isGreaterThan(0L);
+    assertWithMessage("read throughput collapsed under refreshes: %s vs %s", mixed, baseline)
+        .that(mixed.readsPerSecond() * MAX_READ_SLOWDOWN)
+        .isAtLeast(baseline.readsPerSecond());
+  }
+
+  private static void report(Result... results) throws IOException {
+    Stream.of(results).forEach(result -> logger.info(result.toString()));
+    String outputs = System.getenv("TEST_UNDECLARED_OUTPUTS_DIR");
+    if (outputs == null) {
+      return;
+    }
+    List<String> json = Stream.of(results).map(Result::toJson).collect(Collectors.toList());
+    Files.writeString(
+        Path.of(outputs, "experiment_service_stress.json"),
+        "[" + String.join(",\n", json) + "]\n",
+        StandardCharsets.UTF_8);
+  }
+}
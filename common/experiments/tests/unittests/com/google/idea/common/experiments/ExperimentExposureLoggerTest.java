@@ -0,0 +1,137 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.experiments;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link ExperimentExposureLogger}. */
+@RunWith(JUnit4.class)
+public class ExperimentExposureLoggerTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private ExperimentExposureLogger createLogger(int capacity, long maxFileBytes) {
+    return new ExperimentExposureLogger(
+        folder.getRoot().toPath(),
+        MoreExecutors.directExecutor(),
+        "session",
+        capacity,
+        maxFileBytes,
+        /* maxRolledFiles= */ 2);
+  }
+
+  @Test
+  public void testDisabledByDefault() {
+    ExperimentExposureLogger logger = createLogger(16, 1024);
+    logger.onExposure("exp", "1");
+    logger.flush();
+    assertThat(Files.exists(logger.logFile())).isFalse();
+  }
+
+  @Test
+  public void testLogsEachValueOncePerSession() throws IOException {
+    ExperimentExposureLogger logger = createLogger(16, 1024);
+    logger.configure(ImmutableMap.of(ExperimentExposureLogger.ENABLED_KEY, "1"));
+    logger.onExposure("exp", "1");
+    logger.onExposure("exp", "1");
+    logger.onExposure("exp", "0");
+    logger.onExposure("other", null);
+    logger.onExposure("other", null);
+    logger.flush();
+
+    List<String> lines = readLines(logger.logFile());
+    assertThat(lines).hasSize(3);
+    assertThat(lines.get(0)).contains("\"session\":\"session\",\"key\":\"exp\",\"value\":\"1\"}");
+    assertThat(lines.get(1)).contains("\"key\":\"exp\",\"value\":\"0\"}");
+    assertThat(lines.get(2)).contains("\"key\":\"other\",\"value\":null}");
+  }
+
+  @Test
+  public void testSamplingPerExperiment() throws IOException {
+    ExperimentExposureLogger logger = createLogger(16, 1024);
+    logger.configure(
+        ImmutableMap.of(
+            ExperimentExposureLogger.ENABLED_KEY,
+            "1",
+            ExperimentExposureLogger.SAMPLE_KEY,
+            "0",
+            ExperimentExposureLogger.SAMPLE_KEY + ".included",
+            "100"));
+    logger.onExposure("excluded", "1");
+    logger.onExposure("included", "1");
+    logger.flush();
+
+    List<String> lines = readLines(logger.logFile());
+    assertThat(lines).hasSize(1);
+    assertThat(lines.get(0)).contains("\"key\":\"included\"");
+  }
+
+  @Test
+  public void testFlushesWhenBufferIsHalfFull() throws IOException {
+    ExperimentExposureLogger logger = createLogger(4, 1024);
+    logger.configure(ImmutableMap.of(ExperimentExposureLogger.ENABLED_KEY, "1"));
+    logger.onExposure("exp", "1");
+    assertThat(Files.exists(logger.logFile())).isFalse();
+    logger.onExposure("exp", "2");
+
+    assertThat(readLines(logger.logFile())).hasSize(2);
+  }
+
+  @Test
+  public void testRollsLogFile() throws IOException {
+    ExperimentExposureLogger logger = createLogger(16, 1);
+    logger.configure(ImmutableMap.of(ExperimentExposureLogger.ENABLED_KEY, "1"));
+    for (int i = 0; i < 4; i++) {
+      logger.onExposure("exp", String.valueOf(i));
+      logger.flush();
+    }
+
+    assertThat(readLines(logger.logFile())).hasSize(1);
+    assertThat(readLines(logger.rolledFile(1))).hasSize(1);
+    assertThat(readLines(logger.rolledFile(2))).hasSize(1);
+    assertThat(Files.exists(logger.rolledFile(3))).isFalse();
+  }
+
+  @Test
+  public void testEscapesValues() throws IOException {
+    ExperimentExposureLogger logger = createLogger(16, 1024);
+    logger.configure(ImmutableMap.of(ExperimentExposureLogger.ENABLED_KEY, "1"));
+    logger.onExposure("exp", "a\"b\\c\n");
+    logger.flush();
+
+    assertThat(readLines(logger.logFile()).get(0)).contains("\"value\":\"a\\\"b\\\\c\\n\"}");
+  }
+
+  private static List<String> readLines(Path file) throws IOException {
+    return Files.readAllLines(file, StandardCharsets.UTF_8);
+  }
+}
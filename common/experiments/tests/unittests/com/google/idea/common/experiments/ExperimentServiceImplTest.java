@@ -26,6 +26,9 @@ import com.google.idea.common.experiments.FeatureRolloutExperiment.UsernameProvi
 import com.google.idea.testing.IntellijRule;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -188,6 +191,56 @@ public class ExperimentServiceImplTest {
         .isEqualTo("two");
   }
 
+  @Test
+  public void testRefreshNotifiedInScopeIsAppliedWhenScopeEnds() throws Exception {
+    MapExperimentLoader experimentLoader = new MapExperimentLoader("id");
+    experimentLoader.map.put(STRING_EXPERIMENT.getKey(), "one");
+    ExperimentServiceImpl experimentService =
+        new ExperimentServiceImpl(() -> "", /* refreshSynchronously= */ false, experimentLoader);
+    experimentService.startExperimentScope();
+    experimentLoader.map.put(STRING_EXPERIMENT.getKey(), "two");
+    experimentService.notifyExperimentsChanged();
+    Thread.sleep(100);
+    assertThat(experimentService.getExperimentString(STRING_EXPERIMENT, "default"))
+        .isEqualTo("one");
+
+    experimentService.endExperimentScope();
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!experimentService.getExperimentString(STRING_EXPERIMENT, "default").equals("two")
+        && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    assertThat(experimentService.getExperimentString(STRING_EXPERIMENT, "default"))
+        .isEqualTo("two");
+  }
+
+  @Test
+  public void testSlowLoadDoesNotBlockScopesOrReplaceNewerExperiments() throws Exception {
+    CountingExperimentLoader experimentLoader = new CountingExperimentLoader();
+    ExperimentService experimentService =
+        new ExperimentServiceImpl(() -> "", /* refreshSynchronously= */ true, experimentLoader);
+    // the second load blocks until released, all later loads are newer
+    experimentLoader.blockedLoad = 2;
+    Thread slowScope = new Thread(experimentService::startExperimentScope);
+    slowScope.start();
+    assertThat(experimentLoader.blocked.await(10, TimeUnit.SECONDS)).isTrue();
+
+    experimentService.startExperimentScope();
+    assertThat(experimentService.getExperimentString(STRING_EXPERIMENT, "default"))
+        .isEqualTo("3");
+    experimentService.endExperimentScope();
+    assertThat(experimentService.getExperimentString(STRING_EXPERIMENT, "default"))
+        .isEqualTo("4");
+
+    experimentLoader.release.countDown();
+    slowScope.join(TimeUnit.SECONDS.toMillis(10));
+    assertThat(slowScope.isAlive()).isFalse();
+    assertThat(experimentService.getExperimentString(STRING_EXPERIMENT, "default"))
+        .isEqualTo("4");
+    experimentService.endExperimentScope();
+  }
+
   @Test
   public void testGetOverrides() {
     ExperimentServiceImpl service =
@@ -249,6 +302,37 @@ public class ExperimentServiceImplTest {
                 + "rollout: 7<10? enabled [id1], 7<5? disabled [id2]\n");
   }
 
+  /** Returns the number of the load as value, optionally blocking one of the loads. */
+  private static class CountingExperimentLoader implements ExperimentLoader {
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final CountDownLatch blocked = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile int blockedLoad;
+
+    @Override
+    public ImmutableMap<String, String> getExperiments() {
+      int load = loads.incrementAndGet();
+      if (load == blockedLoad) {
+        blocked.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      return ImmutableMap.of(STRING_EXPERIMENT.getKey(), String.valueOf(load));
+    }
+
+    @Override
+    public void initialize() {}
+
+    @Override
+    public String getId() {
+      return "counting";
+    }
+  }
+
   private static class MapExperimentLoader implements ExperimentLoader {
 
     private final String id;
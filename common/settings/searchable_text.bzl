@@ -0,0 +1,43 @@
+#
+# This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+# It was modified by JetBrains s.r.o. and contributors
+#
+"""Build-time indexing of the searchable text of AutoConfigurable settings."""
+
+load("@rules_java//java:defs.bzl", "java_binary", "java_library")
+
+def searchable_text_index(name, providers, deps, **kwargs):
+    """Generates a prebuilt searchable text index from SearchableTextProviders.
+
+    The index is packaged as the resource `search/<name>.searchableText` of the java_library
+    `name`. Register a PrebuiltSearchableOptionContributor for that resource to load it at runtime,
+    so settings search works without instantiating any configurables.
+
+    Args:
+      name: the name of the java_library containing the index.
+      providers: fully qualified class names of SearchableTextProvider implementations.
+      deps: the java libraries containing the providers.
+      **kwargs: any further arguments to be passed to the java_library.
+    """
+    indexer = name + "_indexer"
+    java_binary(
+        name = indexer,
+        main_class = "com.google.idea.common.settings.tools.SearchableTextIndexer",
+        jvm_flags = ["-Djava.awt.headless=true"],
+        runtime_deps = deps + ["//common/settings:indexer"],
+    )
+
+    index = "search/%s.searchableText" % name
+    native.genrule(
+        name = name + "_index",
+        outs = [index],
+        cmd = "$(location :%s) $@ %s" % (indexer, " ".join(providers)),
+        tools = [":" + indexer],
+    )
+
+    java_library(
+        name = name,
+        resources = [index],
+        resource_strip_prefix = native.package_name(),
+        **kwargs
+    )
@@ -18,12 +18,21 @@
  */
 package com.google.idea.common.settings;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import com.google.common.collect.ImmutableList;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.intellij.openapi.Disposable;
 import com.intellij.openapi.options.ConfigurationException;
 import com.intellij.openapi.options.UnnamedConfigurable;
+import com.intellij.openapi.util.Disposer;
 import com.intellij.ui.components.panels.VerticalLayout;
 import com.intellij.uiDesigner.core.AbstractLayout;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import javax.annotation.Nullable;
 import javax.swing.JComponent;
 import javax.swing.JPanel;
@@ -36,11 +45,22 @@ public abstract class AutoConfigurable implements UnnamedConfigurable {
 
   private final ImmutableList<ConfigurableSetting<?, ?>> settings;
 
+  private final List<SettingsChangedListener> listeners = new CopyOnWriteArrayList<>();
+
   private SettingComponentBindings bindings;
 
-  /** Creates an {@link AutoConfigurable} for the given settings. */
+  /**
+   * Creates an {@link AutoConfigurable} for the given settings.
+   *
+   * @throws IllegalArgumentException if two settings have the same {@linkplain
+   *     ConfigurableSetting#id() id}. Labels need not be unique.
+   */
   protected AutoConfigurable(List<? extends ConfigurableSetting<?, ?>> settings) {
     this.settings = ImmutableList.copyOf(settings);
+    Set<String> ids = new HashSet<>();
+    for (ConfigurableSetting<?, ?> setting : this.settings) {
+      setting.id().ifPresent(id -> checkArgument(ids.add(id), "duplicate setting id %s", id));
+    }
   }
 
   private SettingComponentBindings getBindings() {
@@ -51,7 +71,8 @@ public abstract class AutoConfigurable implements UnnamedConfigurable {
   }
 
   /**
-   * Returns the {@link SettingComponent} corresponding to the given setting.
+   * Returns the {@link SettingComponent} corresponding to the given setting, creating it on the
+   * first call.
    *
    * @throws IllegalStateException if {@code setting} was not a {@link ConfigurableSetting} instance
    *     passed to the constructor of this {@link AutoConfigurable}.
@@ -87,18 +108,26 @@ public abstract class AutoConfigurable implements UnnamedConfigurable {
   /**
    * Creates a panel containing the root Swing components of the given settings, stacked vertically.
    *
+   * <p>Settings which are hidden by a condition that doesn't depend on other settings are left out,
+   * and their components are never created. Settings whose visibility depends on other settings
+   * are always added, and shown or hidden as the values of these settings change.
+   *
    * @throws IllegalStateException if any setting was not a {@link ConfigurableSetting} instance
    *     passed to the constructor of this {@link AutoConfigurable}.
    */
   protected JPanel createVerticalPanel(List<ConfigurableSetting<?, ?>> settings) {
     JPanel panel = new JPanel(new VerticalLayout(/* gap= */ AbstractLayout.DEFAULT_VGAP));
-    settings.stream().map(this::getRootComponent).forEach(panel::add);
+    settings.stream()
+        .filter(setting -> !getBindings().isHiddenStatically(setting))
+        .map(this::getRootComponent)
+        .forEach(panel::add);
     return panel;
   }
 
   @Nullable
   @Override
   public JComponent createComponent() {
+    Property.invalidateCachedObjects();
     return createVerticalPanel(settings);
   }
 
@@ -107,13 +136,100 @@ public abstract class AutoConfigurable implements UnnamedConfigurable {
     return getBindings().isModified();
   }
 
+  /**
+   * Registers a listener which is notified once per {@link #apply()} that changed any settings,
+   * until {@code parentDisposable} is disposed.
+   */
+  public void addSettingsChangedListener(
+      SettingsChangedListener listener, Disposable parentDisposable) {
+    listeners.add(listener);
+    Disposer.register(parentDisposable, () -> listeners.remove(listener));
+  }
+
+  /**
+   * Applies the modified settings. Only settings whose value was changed in the UI are written,
+   * and {@link SettingsChangedListener SettingsChangedListeners} are notified once afterwards.
+   */
   @Override
   public void apply() throws ConfigurationException {
-    getBindings().applySettings();
+    Property.invalidateCachedObjects();
+    notifySettingsChanged(getBindings().applySettings());
+  }
+
+  private void notifySettingsChanged(ImmutableList<ConfigurableSetting<?, ?>> changedSettings) {
+    if (changedSettings.isEmpty()) {
+      return;
+    }
+    for (SettingsChangedListener listener : listeners) {
+      listener.settingsChanged(changedSettings);
+    }
+  }
+
+  /**
+   * Returns a snapshot of the stored values of all settings of this configurable which have an
+   * {@linkplain ConfigurableSetting#id() id}. Values which were modified in the UI but not yet
+   * applied are not included.
+   */
+  public SettingsSnapshot exportSettings() {
+    Property.invalidateCachedObjects();
+    return SettingsSnapshot.capture(settings);
+  }
+
+  /**
+   * Writes the values of the given snapshot to the settings of this configurable, as a single
+   * batch. Only settings whose id is contained in the snapshot and whose stored value differs are
+   * written; their components are updated, and {@link SettingsChangedListener
+   * SettingsChangedListeners} are notified once afterwards. Snapshot entries without a
+   * corresponding setting are ignored.
+   *
+   * @return the settings which were changed, in declaration order
+   * @throws IllegalArgumentException if a contained value doesn't have the value type of its
+   *     setting. No setting is written in this case.
+   */
+  @CanIgnoreReturnValue
+  public ImmutableList<ConfigurableSetting<?, ?>> importSettings(SettingsSnapshot snapshot) {
+    Property.invalidateCachedObjects();
+    // validate and diff the whole snapshot first, so the setters run as one uninterrupted batch
+    ImmutableList.Builder<ConfigurableSetting<?, ?>> builder = ImmutableList.builder();
+    for (ConfigurableSetting<?, ?> setting : settings) {
+      String id = setting.id().orElse(null);
+      if (id == null || !snapshot.contains(id)) {
+        continue;
+      }
+      Object value = snapshot.get(id);
+      checkArgument(
+          setting.acceptsValue(value),
+          "value %s is not valid for setting %s of type %s",
+          value,
+          id,
+          setting.valueType().get().getName());
+      if (!Objects.equals(value, setting.setting().getValue())) {
+        builder.add(setting);
+      }
+    }
+    ImmutableList<ConfigurableSetting<?, ?>> changed = builder.build();
+    if (changed.isEmpty()) {
+      return changed;
+    }
+    for (ConfigurableSetting<?, ?> setting : changed) {
+      importValue(setting, snapshot.get(setting.id().get()));
+    }
+    if (bindings != null) {
+      bindings.resetComponents(changed);
+    }
+    notifySettingsChanged(changed);
+    return changed;
+  }
+
+  // The value was checked against the setting's value type before.
+  @SuppressWarnings("unchecked")
+  private static <T> void importValue(ConfigurableSetting<T, ?> setting, @Nullable Object value) {
+    setting.setting().setValue((T) value);
   }
 
   @Override
   public void reset() {
+    Property.invalidateCachedObjects();
     getBindings().resetComponents();
   }
 }
@@ -0,0 +1,119 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.settings;
+
+import com.intellij.openapi.application.Application;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.project.ProjectManager;
+import com.intellij.openapi.project.ProjectManagerListener;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link Property} which resolves the object it operates on once, and reuses it until {@link
+ * #invalidateAll()} is called or a project is closed. See {@link Property#createCached}.
+ *
+ * <p>Instances are typically held by static {@link ConfigurableSetting ConfigurableSettings}, so
+ * the object is only referenced weakly. Otherwise, a project-level settings service would stay
+ * reachable after its project was closed.
+ */
+final class CachedObjectProperty<ObjectT, ValueT> implements Property<ValueT> {
+
+  // Incremented on each invalidation; cached objects of older generations are resolved again.
+  private static final AtomicInteger generation = new AtomicInteger();
+  // The applications which invalidate the cached objects when a project is closed. Tests replace
+  // the application, so the listener has to be registered with each of them.
+  private static final Map<Application, Boolean> listeningApplications =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
+  private final Supplier<ObjectT> objectSupplier;
+  private final Getter<ObjectT, ValueT> getter;
+  private final Setter<ObjectT, ValueT> setter;
+
+  @Nullable private volatile Resolved<ObjectT> resolved;
+
+  CachedObjectProperty(
+      Supplier<ObjectT> objectSupplier,
+      Getter<ObjectT, ValueT> getter,
+      Setter<ObjectT, ValueT> setter) {
+    this.objectSupplier = objectSupplier;
+    this.getter = getter;
+    this.setter = setter;
+  }
+
+  static void invalidateAll() {
+    generation.incrementAndGet();
+  }
+
+  private static void listenForProjectClose() {
+    Application application = ApplicationManager.getApplication();
+    if (application == null || listeningApplications.putIfAbsent(application, true) != null) {
+      return;
+    }
+    application
+        .getMessageBus()
+        .connect(application)
+        .subscribe(
+            ProjectManager.TOPIC,
+            new ProjectManagerListener() {
+              @Override
+              public void projectClosed(Project project) {
+                invalidateAll();
+              }
+            });
+  }
+
+  @Override
+  public ValueT getValue() {
+    return getter.getValue(object());
+  }
+
+  @Override
+  public void setValue(ValueT value) {
+    setter.setValue(object(), value);
+  }
+
+  private ObjectT object() {
+    int current = generation.get();
+    Resolved<ObjectT> resolved = this.resolved;
+    ObjectT object = resolved != null && resolved.generation == current ? resolved.get() : null;
+    if (object == null) {
+      listenForProjectClose();
+      object = objectSupplier.get();
+      this.resolved = new Resolved<>(object, current);
+    }
+    return object;
+  }
+
+  /** A weakly referenced object together with the generation it was resolved in. */
+  private static final class Resolved<ObjectT> extends WeakReference<ObjectT> {
+    private final int generation;
+
+    Resolved(ObjectT object, int generation) {
+      super(object);
+      this.generation = generation;
+    }
+  }
+}
@@ -18,13 +18,17 @@
  */
 package com.google.idea.common.settings;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 
 import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Primitives;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.idea.common.settings.Property.Getter;
 import com.google.idea.common.settings.Property.Setter;
 import java.util.Optional;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import javax.annotation.Nullable;
 
@@ -48,15 +52,84 @@ public abstract class ConfigurableSetting<ValueT, ComponentT extends SettingComp
   /** Returns a {@link Property} for accessing and modifying the setting. */
   abstract Property<ValueT> setting();
 
-  abstract Optional<Supplier<Boolean>> hideCondition();
+  /**
+   * Returns the stable id under which this setting is stored in a {@link SettingsSnapshot}, or
+   * empty if the setting doesn't take part in snapshots.
+   */
+  public abstract Optional<String> id();
+
+  abstract Optional<Class<? super ValueT>> valueType();
+
+  abstract Optional<HideCondition> hideCondition();
 
   abstract ComponentFactory<ComponentT> componentFactory();
 
-  /** Creates a {@link SettingComponent} for representing this setting in a UI. */
+  /**
+   * Creates a {@link SettingComponent} for representing this setting in a UI.
+   *
+   * <p>The hide condition is not applied here; {@link SettingComponentBindings} evaluates it
+   * against the values shown in the UI, and keeps it up to date.
+   */
   final ComponentT createComponent() {
-    ComponentT component = componentFactory().createComponent(label());
-    hideCondition().ifPresent(hide -> component.setEnabledAndVisible(!hide.get()));
-    return component;
+    return componentFactory().createComponent(label());
+  }
+
+  /** Returns whether the condition for hiding this setting holds for the given values. */
+  final boolean isHidden(SettingValues values) {
+    return hideCondition().map(condition -> condition.test(values)).orElse(false);
+  }
+
+  /**
+   * Returns whether {@code value} can be imported into this setting. Only settings with an {@link
+   * #id()} accept any value. {@code null} is rejected for primitive wrapper types.
+   */
+  final boolean acceptsValue(@Nullable Object value) {
+    if (!valueType().isPresent()) {
+      return false;
+    }
+    Class<?> type = valueType().get();
+    return value != null ? type.isInstance(value) : !Primitives.isWrapperType(type);
+  }
+
+  /** Returns whether the hide condition depends on the UI values of other settings. */
+  final boolean hasReactiveHideCondition() {
+    return hideCondition().map(condition -> !condition.dependencies.isEmpty()).orElse(false);
+  }
+
+  /** Provides the values of settings, as currently shown in the UI, to hide conditions. */
+  public interface SettingValues {
+    /**
+     * Returns the value of the given setting. If the setting is part of the same UI, this is the
+     * (possibly not yet applied) value of its component, otherwise the stored setting value.
+     */
+    <T> T get(ConfigurableSetting<T, ?> setting);
+  }
+
+  /** A condition for hiding a setting, together with the settings it depends on. */
+  static final class HideCondition {
+    final ImmutableSet<ConfigurableSetting<?, ?>> dependencies;
+    private final Predicate<SettingValues> predicate;
+
+    private HideCondition(
+        ImmutableSet<ConfigurableSetting<?, ?>> dependencies, Predicate<SettingValues> predicate) {
+      this.dependencies = dependencies;
+      this.predicate = predicate;
+    }
+
+    /** Creates a condition which is only evaluated when the UI is created. */
+    static HideCondition of(Supplier<Boolean> condition) {
+      return new HideCondition(ImmutableSet.of(), values -> condition.get());
+    }
+
+    /** Creates a condition which is re-evaluated whenever a dependency changes in the UI. */
+    static HideCondition of(
+        ImmutableSet<ConfigurableSetting<?, ?>> dependencies, Predicate<SettingValues> condition) {
+      return new HideCondition(dependencies, condition);
+    }
+
+    boolean test(SettingValues values) {
+      return predicate.test(values);
+    }
   }
 
   /** A factory for creating {@link SettingComponent SettingComponents}. */
@@ -75,14 +148,37 @@ public abstract class ConfigurableSetting<ValueT, ComponentT extends SettingComp
           Property<ValueT> settingProperty,
           @Nullable Supplier<Boolean> hideCondition,
           ComponentFactory<ComponentT> componentFactory) {
+    return create(
+        searchableText,
+        settingProperty,
+        /* id= */ null,
+        /* valueType= */ null,
+        hideCondition != null ? HideCondition.of(hideCondition) : null,
+        componentFactory);
+  }
+
+  private static <ValueT, ComponentT extends SettingComponent<ValueT>>
+      ConfigurableSetting<ValueT, ComponentT> create(
+          SearchableText searchableText,
+          Property<ValueT> settingProperty,
+          @Nullable String id,
+          @Nullable Class<? super ValueT> valueType,
+          @Nullable HideCondition hideCondition,
+          ComponentFactory<ComponentT> componentFactory) {
     return new AutoValue_ConfigurableSetting<>(
-        searchableText, settingProperty, Optional.ofNullable(hideCondition), componentFactory);
+        searchableText,
+        settingProperty,
+        Optional.ofNullable(id),
+        Optional.ofNullable(valueType),
+        Optional.ofNullable(hideCondition),
+        componentFactory);
   }
 
   /**
    * Returns a builder for creating a {@link ConfigurableSetting}.
    *
-   * @param settingsProvider provides the object containing the setting to represent
+   * @param settingsProvider provides the object containing the setting to represent. It is called
+   *     on every access of the setting, unless {@link TypedBuilder#cacheSettingsObject()} is used.
    */
   public static <SettingsT> Builder<SettingsT> builder(Supplier<SettingsT> settingsProvider) {
     return new Builder<>(settingsProvider);
@@ -96,7 +192,7 @@ public abstract class ConfigurableSetting<ValueT, ComponentT extends SettingComp
     final SearchableText.Builder searchableTextBuilder;
     final Supplier<SettingsT> settingsProvider;
 
-    @Nullable Supplier<Boolean> hideCondition;
+    @Nullable HideCondition hideCondition;
 
     AbstractBuilder(Supplier<SettingsT> settingsProvider) {
       this.searchableTextBuilder = SearchableText.builder();
@@ -139,9 +235,43 @@ public abstract class ConfigurableSetting<ValueT, ComponentT extends SettingComp
      */
     @CanIgnoreReturnValue
     public BuilderT hideIf(Supplier<Boolean> hideCondition) {
-      checkState(this.hideCondition == null, "hideIf/showIf can only be called once");
-      this.hideCondition = hideCondition;
-      return self();
+      return setHideCondition(HideCondition.of(hideCondition));
+    }
+
+    /**
+     * Sets a condition for hiding and disabling this setting in the UI, based on the value of
+     * another setting.
+     *
+     * <p>The condition is re-evaluated whenever the UI value of {@code dependency} changes, and
+     * only then.
+     *
+     * @throws IllegalStateException if {@link #hideIf} or {@link #showIf} has already been called.
+     *     Only one condition is supported.
+     */
+    @CanIgnoreReturnValue
+    public <T> BuilderT hideIf(
+        ConfigurableSetting<T, ?> dependency, Predicate<? super T> hideCondition) {
+      return hideIf(values -> hideCondition.test(values.get(dependency)), dependency);
+    }
+
+    /**
+     * Sets a condition for hiding and disabling this setting in the UI, based on the values of
+     * other settings.
+     *
+     * <p>The condition is re-evaluated whenever the UI value of one of the {@code dependencies}
+     * changes, and only then. It must only read the values of the declared dependencies. Use
+     * {@link #hideIf(Supplier)} for a condition without dependencies.
+     *
+     * @throws IllegalArgumentException if no dependencies are given
+     * @throws IllegalStateException if {@link #hideIf} or {@link #showIf} has already been called.
+     *     Only one condition is supported.
+     */
+    @CanIgnoreReturnValue
+    public BuilderT hideIf(
+        Predicate<SettingValues> hideCondition, ConfigurableSetting<?, ?>... dependencies) {
+      // without dependencies, the condition would silently never be re-evaluated
+      checkArgument(dependencies.length > 0, "a reactive hide condition needs dependencies");
+      return setHideCondition(HideCondition.of(ImmutableSet.copyOf(dependencies), hideCondition));
     }
 
     /**
@@ -152,9 +282,43 @@ public abstract class ConfigurableSetting<ValueT, ComponentT extends SettingComp
      * @throws IllegalStateException if {@link #hideIf} or {@link #showIf} has already been called.
      *     Only one condition is supported.
      */
+    @CanIgnoreReturnValue
     public BuilderT showIf(Supplier<Boolean> showCondition) {
       return hideIf(() -> !showCondition.get());
     }
+
+    /**
+     * Sets a condition for showing and enabling this setting in the UI, based on the value of
+     * another setting. See {@link #hideIf(ConfigurableSetting, Predicate)}.
+     *
+     * @throws IllegalStateException if {@link #hideIf} or {@link #showIf} has already been called.
+     *     Only one condition is supported.
+     */
+    @CanIgnoreReturnValue
+    public <T> BuilderT showIf(
+        ConfigurableSetting<T, ?> dependency, Predicate<? super T> showCondition) {
+      return hideIf(dependency, showCondition.negate());
+    }
+
+    /**
+     * Sets a condition for showing and enabling this setting in the UI, based on the values of
+     * other settings. See {@link #hideIf(Predicate, ConfigurableSetting[])}.
+     *
+     * @throws IllegalArgumentException if no dependencies are given
+     * @throws IllegalStateException if {@link #hideIf} or {@link #showIf} has already been called.
+     *     Only one condition is supported.
+     */
+    @CanIgnoreReturnValue
+    public BuilderT showIf(
+        Predicate<SettingValues> showCondition, ConfigurableSetting<?, ?>... dependencies) {
+      return hideIf(showCondition.negate(), dependencies);
+    }
+
+    private BuilderT setHideCondition(HideCondition hideCondition) {
+      checkState(this.hideCondition == null, "hideIf/showIf can only be called once");
+      this.hideCondition = hideCondition;
+      return self();
+    }
   }
 
   /** A builder for {@link ConfigurableSetting}. */
@@ -187,6 +351,9 @@ public abstract class ConfigurableSetting<ValueT, ComponentT extends SettingComp
 
     private Getter<SettingsT, ValueT> getter;
     private Setter<SettingsT, ValueT> setter;
+    @Nullable private String id;
+    @Nullable private Class<? super ValueT> valueType;
+    private boolean cacheSettingsObject;
 
     private TypedBuilder(AbstractBuilder<SettingsT, ?> other) {
       super(other);
@@ -211,6 +378,33 @@ public abstract class ConfigurableSetting<ValueT, ComponentT extends SettingComp
       return self();
     }
 
+    /**
+     * Sets a stable id for this setting, under which its value is exported to and imported from a
+     * {@link SettingsSnapshot}. Unlike the label, the id must not change between releases, and it
+     * must be unique within an {@link AutoConfigurable}. Settings without an id are left out of
+     * snapshots.
+     *
+     * @param valueType the type which imported values are checked against
+     */
+    @CanIgnoreReturnValue
+    public TypedBuilder<SettingsT, ValueT> id(String id, Class<? super ValueT> valueType) {
+      this.id = id;
+      this.valueType = valueType;
+      return self();
+    }
+
+    /**
+     * Calls the settings provider at most once per {@link AutoConfigurable} reset and apply cycle,
+     * rather than on every access, see {@link Property#createCached}. Use this for providers which
+     * are expensive to call, like service lookups, and which return the same object until the
+     * cycle ends.
+     */
+    @CanIgnoreReturnValue
+    public TypedBuilder<SettingsT, ValueT> cacheSettingsObject() {
+      this.cacheSettingsObject = true;
+      return self();
+    }
+
     /**
      * Sets the {@link ComponentFactory} used to create the UI component, and returns the built
      * {@link ConfigurableSetting}.
@@ -221,7 +415,11 @@ public abstract class ConfigurableSetting<ValueT, ComponentT extends SettingComp
 
       return create(
           searchableTextBuilder.build(),
-          Property.create(settingsProvider, getter, setter),
+          cacheSettingsObject
+              ? Property.createCached(settingsProvider, getter, setter)
+              : Property.create(settingsProvider, getter, setter),
+          id,
+          valueType,
           hideCondition,
           componentFactory);
     }
@@ -0,0 +1,70 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.settings;
+
+import com.google.idea.common.settings.SearchableTextIndex.Entry;
+import com.intellij.ide.ui.search.SearchableOptionContributor;
+import com.intellij.ide.ui.search.SearchableOptionProcessor;
+import com.intellij.openapi.diagnostic.Logger;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Registers the searchable texts of a prebuilt {@link SearchableTextIndex}, without instantiating
+ * any configurables.
+ *
+ * <p>Plugins subclass this with the resource name of the index generated by the {@code
+ * searchable_text_index} build rule, and register the subclass as a {@code
+ * searchableOptionContributor} extension.
+ */
+public abstract class PrebuiltSearchableOptionContributor extends SearchableOptionContributor {
+  private static final Logger logger =
+      Logger.getInstance(PrebuiltSearchableOptionContributor.class);
+
+  private final String resourceName;
+
+  /**
+   * @param resourceName the path of the index resource, relative to the root of the plugin jar
+   */
+  protected PrebuiltSearchableOptionContributor(String resourceName) {
+    this.resourceName = resourceName;
+  }
+
+  @Override
+  public void processOptions(SearchableOptionProcessor processor) {
+    InputStream stream = getClass().getClassLoader().getResourceAsStream(resourceName);
+    if (stream == null) {
+      logger.warn("Searchable text index not found: " + resourceName);
+      return;
+    }
+    try (Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+      for (Entry entry : SearchableTextIndex.read(reader)) {
+        SearchableTextHelper helper =
+            new SearchableTextHelper(
+                processor, entry.getConfigurableId(), entry.getDisplayName());
+        entry.getTexts().forEach(helper::registerText);
+      }
+    } catch (IOException e) {
+      logger.warn("Could not read searchable text index: " + resourceName, e);
+    }
+  }
+}
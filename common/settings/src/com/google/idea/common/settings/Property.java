@@ -62,4 +62,29 @@ public interface Property<T> {
       }
     };
   }
+
+  /**
+   * Creates a {@link Property} from a getter and setter which operate on a property of the given
+   * object, like {@link #create}.
+   *
+   * <p>The object is only resolved on first access, and then reused until {@link
+   * #invalidateCachedObjects()} is called or a project is closed. This avoids repeated (service)
+   * lookups when a property is accessed many times, e.g. while polling for modifications. The
+   * cached object is only weakly referenced, so it doesn't outlive its project.
+   */
+  static <ObjectT, ValueT> Property<ValueT> createCached(
+      Supplier<ObjectT> objectSupplier,
+      Getter<ObjectT, ValueT> getter,
+      Setter<ObjectT, ValueT> setter) {
+    return new CachedObjectProperty<>(objectSupplier, getter, setter);
+  }
+
+  /**
+   * Invalidates the objects cached by all properties created with {@link #createCached}, so they
+   * are resolved again on next access. {@link AutoConfigurable} calls this once per reset and
+   * apply cycle.
+   */
+  static void invalidateCachedObjects() {
+    CachedObjectProperty.invalidateAll();
+  }
 }
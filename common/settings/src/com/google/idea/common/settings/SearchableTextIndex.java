@@ -0,0 +1,192 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.settings;
+
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableList;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A prebuilt index of {@link SearchableText}, generated at build time from {@link
+ * SearchableTextProvider SearchableTextProviders}.
+ *
+ * <p>The format is line based, with tab separated fields, the first of which is the record type. A
+ * line {@code configurable <id> <display name>} starts the texts of a configurable, and every
+ * following line {@code text <label> <tags>...} holds one of its texts. Tabs, line breaks and
+ * backslashes in values are escaped with a backslash. Lines starting with {@code #} are ignored.
+ */
+public final class SearchableTextIndex {
+
+  private static final String CONFIGURABLE = "configurable";
+  private static final String TEXT = "text";
+  private static final String COMMENT = "#";
+
+  /** The searchable texts of a single configurable. */
+  public static final class Entry {
+    private final String configurableId;
+    private final String displayName;
+    private final ImmutableList<SearchableText> texts;
+
+    Entry(String configurableId, String displayName, ImmutableList<SearchableText> texts) {
+      this.configurableId = configurableId;
+      this.displayName = displayName;
+      this.texts = texts;
+    }
+
+    public String getConfigurableId() {
+      return configurableId;
+    }
+
+    public String getDisplayName() {
+      return displayName;
+    }
+
+    public ImmutableList<SearchableText> getTexts() {
+      return texts;
+    }
+  }
+
+  private SearchableTextIndex() {}
+
+  /** Writes the texts of the given providers to {@code out}. */
+  public static void write(List<? extends SearchableTextProvider> providers, Writer out)
+      throws IOException {
+    out.write(COMMENT + " Generated by SearchableTextIndexer, do not edit.\n");
+    for (SearchableTextProvider provider : providers) {
+      writeLine(
+          out,
+          ImmutableList.of(CONFIGURABLE, provider.getConfigurableId(), provider.getDisplayName()));
+      ImmutableCollection<SearchableText> texts = provider.getSearchableTexts();
+      for (SearchableText text : texts) {
+        writeLine(
+            out,
+            ImmutableList.<String>builder().add(TEXT, text.label()).addAll(text.tags()).build());
+      }
+    }
+  }
+
+  /** Reads all entries from {@code in}. */
+  public static ImmutableList<Entry> read(Reader in) throws IOException {
+    BufferedReader reader = new BufferedReader(in);
+    ImmutableList.Builder<Entry> entries = ImmutableList.builder();
+    String configurableId = null;
+    String displayName = null;
+    ImmutableList.Builder<SearchableText> texts = null;
+    String line;
+    while ((line = reader.readLine()) != null) {
+      if (line.isEmpty() || line.startsWith(COMMENT)) {
+        continue;
+      }
+      List<String> fields = splitLine(line);
+      String type = fields.get(0);
+      if (type.equals(CONFIGURABLE)) {
+        if (fields.size() != 3) {
+          throw new IOException("Malformed configurable record: " + line);
+        }
+        if (texts != null) {
+          entries.add(new Entry(configurableId, displayName, texts.build()));
+        }
+        configurableId = fields.get(1);
+        displayName = fields.get(2);
+        texts = ImmutableList.builder();
+        continue;
+      }
+      if (!type.equals(TEXT) || fields.size() < 2) {
+        throw new IOException("Malformed record: " + line);
+      }
+      if (texts == null) {
+        throw new IOException("Searchable text before the first configurable: " + line);
+      }
+      SearchableText.Builder text = SearchableText.withLabel(fields.get(1));
+      for (String tag : fields.subList(2, fields.size())) {
+        text.addTags(tag);
+      }
+      texts.add(text.build());
+    }
+    if (texts != null) {
+      entries.add(new Entry(configurableId, displayName, texts.build()));
+    }
+    return entries.build();
+  }
+
+  private static void writeLine(Writer out, List<String> fields) throws IOException {
+    StringBuilder line = new StringBuilder();
+    for (String field : fields) {
+      if (line.length() > 0) {
+        line.append('\t');
+      }
+      for (int i = 0; i < field.length(); i++) {
+        char c = field.charAt(i);
+        switch (c) {
+          case '\t':
+            line.append("\\t");
+            break;
+          case '\n':
+            line.append("\\n");
+            break;
+          case '\r':
+            line.append("\\r");
+            break;
+          case '\\':
+            line.append("\\\\");
+            break;
+          default:
+            line.append(c);
+        }
+      }
+    }
+    out.write(line.append('\n').toString());
+  }
+
+  private static List<String> splitLine(String line) {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (c == '\t') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else if (c == '\\' && i + 1 < line.length()) {
+        field.append(unescape(line.charAt(++i)));
+      } else {
+        field.append(c);
+      }
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+
+  private static char unescape(char escaped) {
+    switch (escaped) {
+      case 't':
+        return '\t';
+      case 'n':
+        return '\n';
+      case 'r':
+        return '\r';
+      default:
+        return escaped;
+    }
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.settings;
+
+import com.google.common.collect.ImmutableCollection;
+
+/**
+ * Declares the {@link SearchableText} of a configurable, so it can be indexed at build time.
+ *
+ * <p>Implementations need a public no-argument constructor, and must not access services or
+ * create Swing components. Static {@link ConfigurableSetting} instances are safe to use; see
+ * {@link SearchableText#collect}.
+ *
+ * <p>See {@code //common/settings:searchable_text.bzl} and {@link
+ * PrebuiltSearchableOptionContributor}.
+ */
+public interface SearchableTextProvider {
+
+  /** Returns the ID of the configurable the texts belong to. */
+  String getConfigurableId();
+
+  /** Returns the display name of the configurable the texts belong to. */
+  String getDisplayName();
+
+  /** Returns the searchable texts of the configurable. */
+  ImmutableCollection<SearchableText> getSearchableTexts();
+}
@@ -61,6 +61,18 @@ public abstract class SettingComponent<T> {
   /** Returns a {@link Property} for the value of the UI component. */
   abstract Property<T> getProperty();
 
+  /**
+   * Registers a listener which is called whenever the value of the UI component may have changed.
+   *
+   * <p>Only Swing components whose events cover all of their state are supported, see {@link
+   * SwingChangeEvents}. For anything else, including custom components and editable combo boxes,
+   * this returns false.
+   *
+   * @return false if changes can't be observed for this component, in which case callers have to
+   *     poll {@link #getValue()} instead
+   */
+  abstract boolean addValueListener(Runnable listener);
+
   /** Returns the value of the UI component. */
   public final T getValue() {
     return getProperty().getValue();
@@ -116,6 +128,11 @@ public abstract class SettingComponent<T> {
     Property<T> getProperty() {
       return property;
     }
+
+    @Override
+    boolean addValueListener(Runnable listener) {
+      return SwingChangeEvents.addListener(component, listener);
+    }
   }
 
   /** A {@link SettingComponent} for a Swing component and its label. */
@@ -214,5 +231,10 @@ public abstract class SettingComponent<T> {
     Property<T> getProperty() {
       return property;
     }
+
+    @Override
+    boolean addValueListener(Runnable listener) {
+      return SwingChangeEvents.addListener(component, listener);
+    }
   }
 }
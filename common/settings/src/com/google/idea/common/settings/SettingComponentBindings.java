@@ -20,66 +20,344 @@ package com.google.idea.common.settings;
 
 import static com.google.common.base.Preconditions.checkState;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
+import com.google.idea.common.settings.ConfigurableSetting.SettingValues;
+import com.google.idea.common.ui.properties.ChangeListener;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import javax.annotation.Nullable;
 
 /**
  * Bindings between {@link ConfigurableSetting ConfigurableSettings} and {@link SettingComponent
  * SettingComponents}.
+ *
+ * <p>Components are created lazily, on the first {@link #getComponent} call. Settings whose
+ * component was never created are skipped by {@link #isModified()}, {@link #applySettings()} and
+ * {@link #resetComponents()}, so a page only pays for the settings it shows.
+ *
+ * <p>Modifications are tracked incrementally from the components' change events, against the
+ * setting values read on the last reset or apply. {@link #isModified()} only reads a counter for
+ * these, plus the components which don't report changes, which are polled. Settings changed outside
+ * the UI are picked up by the next {@link #resetComponents()}, or by {@link
+ * #resetComponents(Collection)} for the changed settings.
+ *
+ * <p>{@link #applySettings()} only calls the setters of settings whose value was changed.
+ *
+ * <p>The UI value of each setting which a hide condition depends on is published through a {@link
+ * com.google.idea.common.ui.properties.Property}. A component with such a condition listens to the
+ * properties of its dependencies, so a change only re-evaluates the conditions depending on it.
  */
 final class SettingComponentBindings {
 
   private final ImmutableMap<ConfigurableSetting<?, ?>, Binding<?, ?>> settingToBinding;
+  // Bindings whose component was created, in creation order.
+  private final List<Binding<?, ?>> createdBindings = new ArrayList<>();
+  private final List<Binding<?, ?>> untrackedBindings = new ArrayList<>();
 
-  private SettingComponentBindings(
-      ImmutableMap<ConfigurableSetting<?, ?>, Binding<?, ?>> settingToBinding) {
-    this.settingToBinding = settingToBinding;
+  // The number of tracked bindings whose component value differs from the setting value.
+  private int modifiedCount = 0;
+  // Whether the baselines have to be read from the settings before they can be trusted.
+  private boolean stale = true;
+
+  private final SettingValues uiValues =
+      new SettingValues() {
+        @Override
+        public <T> T get(ConfigurableSetting<T, ?> setting) {
+          return uiValue(setting);
+        }
+      };
+
+  private SettingComponentBindings(List<ConfigurableSetting<?, ?>> settings) {
+    this.settingToBinding = Maps.toMap(settings, Binding::new);
   }
 
   static SettingComponentBindings create(List<ConfigurableSetting<?, ?>> settings) {
-    return new SettingComponentBindings(Maps.toMap(settings, Binding::new));
+    return new SettingComponentBindings(settings);
   }
 
   boolean isModified() {
-    return settingToBinding.values().stream().anyMatch(Binding::isModified);
+    readBaselinesIfStale();
+    if (modifiedCount > 0) {
+      return true;
+    }
+    for (Binding<?, ?> binding : untrackedBindings) {
+      if (binding.computeModified()) {
+        return true;
+      }
+    }
+    return false;
   }
 
-  void applySettings() {
-    settingToBinding.values().forEach(Binding::applySetting);
+  /**
+   * Commits the values of all modified components to their settings.
+   *
+   * @return the settings which were changed, in declaration order
+   */
+  ImmutableList<ConfigurableSetting<?, ?>> applySettings() {
+    readBaselinesIfStale();
+    // collect the whole delta first, so the setters run as one uninterrupted batch
+    List<PendingChange<?>> changes = new ArrayList<>();
+    for (Binding<?, ?> binding : settingToBinding.values()) {
+      PendingChange<?> change = binding.pendingChange();
+      if (change != null) {
+        changes.add(change);
+      }
+    }
+    if (changes.isEmpty()) {
+      return ImmutableList.of();
+    }
+    stale = true;
+    ImmutableList.Builder<ConfigurableSetting<?, ?>> changed = ImmutableList.builder();
+    for (PendingChange<?> change : changes) {
+      change.commit();
+      changed.add(change.binding.configurableSetting);
+    }
+    recountModified();
+    return changed.build();
   }
 
   void resetComponents() {
-    settingToBinding.values().forEach(Binding::resetComponent);
+    // the components' change events are ignored until all baselines are up to date
+    stale = true;
+    createdBindings.forEach(Binding::resetComponent);
+    for (Binding<?, ?> binding : settingToBinding.values()) {
+      // components publish their own values, this covers dependencies without a component
+      if (binding.component == null) {
+        binding.publishSettingValue();
+      }
+    }
+    recountModified();
+  }
+
+  /** Updates the components of the given settings after their values were changed externally. */
+  void resetComponents(Collection<ConfigurableSetting<?, ?>> settings) {
+    stale = true;
+    for (ConfigurableSetting<?, ?> setting : settings) {
+      Binding<?, ?> binding = settingToBinding.get(setting);
+      if (binding == null) {
+        continue;
+      }
+      if (binding.component != null) {
+        binding.resetComponent();
+      } else {
+        binding.publishSettingValue();
+      }
+    }
+    recountModified();
   }
 
+  /**
+   * Returns whether the setting is hidden by a condition which won't change while the UI is
+   * shown. Settings with reactive hide conditions are never hidden statically.
+   */
+  boolean isHiddenStatically(ConfigurableSetting<?, ?> setting) {
+    return !setting.hasReactiveHideCondition() && setting.isHidden(uiValues);
+  }
+
+  /** Returns the current UI value of the setting, or the stored value if it's not part of it. */
+  // ConfigurableSettings are mapped to bindings of the same value type.
+  @SuppressWarnings("unchecked")
+  private <T> T uiValue(ConfigurableSetting<T, ?> setting) {
+    Binding<T, ?> binding = (Binding<T, ?>) settingToBinding.get(setting);
+    return binding != null ? binding.uiValue() : setting.setting().getValue();
+  }
+
+  /** Reads the baselines of tracked bindings, if they weren't read since the last change. */
+  private void readBaselinesIfStale() {
+    if (stale) {
+      createdBindings.forEach(Binding::readBaseline);
+      recountModified();
+    }
+  }
+
+  private void recountModified() {
+    modifiedCount = 0;
+    for (Binding<?, ?> binding : createdBindings) {
+      binding.modified = binding.tracked && binding.computeModified();
+      if (binding.modified) {
+        modifiedCount++;
+      }
+    }
+    stale = false;
+  }
+
+  /** Returns whether changes of the setting's component are tracked, rather than polled. */
+  @VisibleForTesting
+  boolean isTracked(ConfigurableSetting<?, ?> setting) {
+    Binding<?, ?> binding = settingToBinding.get(setting);
+    return binding != null && binding.tracked;
+  }
+
+  /** Returns the component of the given setting, creating it if necessary. */
   // ConfigurableSettings are mapped to the component they create, so the cast here is safe.
   @SuppressWarnings({"unchecked"})
   <C extends SettingComponent<?>> C getComponent(ConfigurableSetting<?, C> setting) {
     checkState(settingToBinding.containsKey(setting), "unknown setting %s", setting);
-    return (C) settingToBinding.get(setting).component;
+    return (C) settingToBinding.get(setting).getOrCreateComponent();
+  }
+
+  /** A component value which is about to be written to its setting. */
+  private static final class PendingChange<T> {
+    private final Binding<T, ?> binding;
+    private final T value;
+
+    PendingChange(Binding<T, ?> binding, T value) {
+      this.binding = binding;
+      this.value = value;
+    }
+
+    void commit() {
+      binding.setting.setValue(value);
+      // setters may normalize the value, so read it back
+      binding.readBaseline();
+    }
   }
 
-  private static final class Binding<T, C extends SettingComponent<T>> {
+  private final class Binding<T, C extends SettingComponent<T>> {
+    private final ConfigurableSetting<T, C> configurableSetting;
     private final Property<T> setting;
-    private final C component;
+
+    @Nullable private C component;
+    private boolean tracked;
+
+    // The UI value, only created once a hide condition depends on it.
+    @Nullable private com.google.idea.common.ui.properties.Property<T> observableValue;
+
+    // The setting value as of the last check. Only used for tracked bindings.
+    private T baseline;
+    private boolean modified = false;
 
     Binding(ConfigurableSetting<T, C> setting) {
+      this.configurableSetting = setting;
       this.setting = setting.setting();
-      this.component = setting.createComponent();
     }
 
-    boolean isModified() {
-      return !Objects.equals(component.getValue(), setting.getValue());
+    C getOrCreateComponent() {
+      if (component != null) {
+        return component;
+      }
+      component = configurableSetting.createComponent();
+      tracked = component.addValueListener(this::componentChanged);
+      createdBindings.add(this);
+      if (!tracked) {
+        untrackedBindings.add(this);
+      }
+      if (observableValue != null) {
+        // a hide condition bound earlier depends on this setting
+        checkObservable();
+      }
+      if (!stale) {
+        // the other components are up to date, so bring this one up to date as well
+        resetComponent();
+        modified = false;
+      }
+      configurableSetting.hideCondition().ifPresent(this::bindHideCondition);
+      return component;
+    }
+
+    private void bindHideCondition(ConfigurableSetting.HideCondition condition) {
+      updateVisibility();
+      ChangeListener<Object> listener = (observable, oldValue, newValue) -> updateVisibility();
+      for (ConfigurableSetting<?, ?> dependency : condition.dependencies) {
+        Binding<?, ?> binding = settingToBinding.get(dependency);
+        if (binding != null) {
+          binding.checkObservable();
+          binding.observableValue().addListener(listener);
+        }
+      }
+    }
+
+    private void updateVisibility() {
+      component.setEnabledAndVisible(!configurableSetting.isHidden(uiValues));
+    }
+
+    /**
+     * Checks that changes of this setting's UI value can be published, which reactive hide
+     * conditions depending on it rely on. Only tracked components report their changes.
+     */
+    void checkObservable() {
+      checkState(
+          component == null || tracked,
+          "Setting '%s' can't be a dependency of a hide condition: changes of its component can't"
+              + " be observed",
+          configurableSetting.label());
+    }
+
+    private com.google.idea.common.ui.properties.Property<T> observableValue() {
+      if (observableValue == null) {
+        observableValue = new com.google.idea.common.ui.properties.Property<>(uiValue());
+      }
+      return observableValue;
+    }
+
+    T uiValue() {
+      if (observableValue != null) {
+        return observableValue.getValue();
+      }
+      return component != null ? component.getValue() : setting.getValue();
+    }
+
+    private void publishComponentValue() {
+      if (observableValue != null) {
+        observableValue.setValue(component.getValue());
+      }
+    }
+
+    void publishSettingValue() {
+      if (observableValue != null) {
+        observableValue.setValue(setting.getValue());
+      }
+    }
+
+    private void componentChanged() {
+      publishComponentValue();
+      if (stale) {
+        return;
+      }
+      updateModified();
+    }
+
+    private void updateModified() {
+      boolean nowModified = computeModified();
+      if (nowModified != modified) {
+        modified = nowModified;
+        modifiedCount += nowModified ? 1 : -1;
+      }
+    }
+
+    boolean computeModified() {
+      // untracked components are polled, so compare them against the live setting value
+      return !Objects.equals(component.getValue(), tracked ? baseline : setting.getValue());
+    }
+
+    void readBaseline() {
+      if (tracked) {
+        baseline = setting.getValue();
+      }
     }
 
-    void applySetting() {
-      setting.setValue(component.getValue());
+    /** Returns the change to commit, or null if the component value wasn't modified. */
+    @Nullable
+    PendingChange<T> pendingChange() {
+      if (component == null || (tracked ? !modified : !computeModified())) {
+        return null;
+      }
+      return new PendingChange<>(this, component.getValue());
     }
 
     void resetComponent() {
-      component.setValue(setting.getValue());
+      T value = setting.getValue();
+      if (tracked) {
+        baseline = value;
+      }
+      component.setValue(value);
+      // untracked components don't report the new value themselves
+      publishComponentValue();
     }
   }
 }
@@ -0,0 +1,33 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.settings;
+
+import com.google.common.collect.ImmutableList;
+
+/** A listener notified when an {@link AutoConfigurable} commits changed settings. */
+@FunctionalInterface
+public interface SettingsChangedListener {
+
+  /**
+   * Called once per commit, after all changed settings have been updated.
+   *
+   * @param changedSettings the settings whose value was changed, never empty
+   */
+  void settingsChanged(ImmutableList<ConfigurableSetting<?, ?>> changedSettings);
+}
@@ -0,0 +1,135 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.settings;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * An immutable snapshot of setting values, keyed by {@linkplain ConfigurableSetting#id() setting
+ * id}. Settings without an id are not contained.
+ *
+ * <p>Snapshots are taken with {@link AutoConfigurable#exportSettings()} and applied with {@link
+ * AutoConfigurable#importSettings}. They can also be built from any map, e.g. a settings preset, in
+ * which case only the contained settings are affected on import. Values may be {@code null}.
+ */
+public final class SettingsSnapshot {
+
+  private static final SettingsSnapshot EMPTY = new SettingsSnapshot(new LinkedHashMap<>());
+
+  private final Map<String, Object> values;
+
+  private SettingsSnapshot(LinkedHashMap<String, Object> values) {
+    this.values = Collections.unmodifiableMap(values);
+  }
+
+  /** Returns an empty snapshot. */
+  public static SettingsSnapshot empty() {
+    return EMPTY;
+  }
+
+  /** Returns a snapshot containing the given values, keyed by setting id. */
+  public static SettingsSnapshot of(Map<String, ?> values) {
+    return new SettingsSnapshot(new LinkedHashMap<>(values));
+  }
+
+  /**
+   * Takes a snapshot of the stored values of the given settings which have an id. The ids must be
+   * unique.
+   */
+  static SettingsSnapshot capture(Iterable<? extends ConfigurableSetting<?, ?>> settings) {
+    LinkedHashMap<String, Object> values = new LinkedHashMap<>();
+    for (ConfigurableSetting<?, ?> setting : settings) {
+      setting.id().ifPresent(id -> values.put(id, setting.setting().getValue()));
+    }
+    return new SettingsSnapshot(values);
+  }
+
+  /** Returns the values of this snapshot, keyed by setting id, in declaration order. */
+  public Map<String, Object> asMap() {
+    return values;
+  }
+
+  /** Returns whether this snapshot contains a value for the given setting id. */
+  public boolean contains(String id) {
+    return values.containsKey(id);
+  }
+
+  /** Returns the value for the given setting id, or {@code null} if there is none. */
+  @Nullable
+  public Object get(String id) {
+    return values.get(id);
+  }
+
+  /**
+   * Returns the ids whose values differ between this snapshot and {@code other}, including ids
+   * only contained in one of them.
+   */
+  public ImmutableSet<String> diff(SettingsSnapshot other) {
+    ImmutableSet.Builder<String> differing = ImmutableSet.builder();
+    for (Map.Entry<String, Object> entry : values.entrySet()) {
+      String id = entry.getKey();
+      if (!other.values.containsKey(id)
+          || !Objects.equals(entry.getValue(), other.values.get(id))) {
+        differing.add(id);
+      }
+    }
+    for (String id : other.values.keySet()) {
+      if (!values.containsKey(id)) {
+        differing.add(id);
+      }
+    }
+    return differing.build();
+  }
+
+  /**
+   * Returns the entries of this snapshot whose values differ from {@code base}. Importing the
+   * result on top of {@code base} has the same effect as importing this snapshot.
+   */
+  public SettingsSnapshot deltaFrom(SettingsSnapshot base) {
+    LinkedHashMap<String, Object> delta = new LinkedHashMap<>();
+    for (Map.Entry<String, Object> entry : values.entrySet()) {
+      String id = entry.getKey();
+      if (!base.values.containsKey(id)
+          || !Objects.equals(entry.getValue(), base.values.get(id))) {
+        delta.put(id, entry.getValue());
+      }
+    }
+    return new SettingsSnapshot(delta);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof SettingsSnapshot && values.equals(((SettingsSnapshot) o).values);
+  }
+
+  @Override
+  public int hashCode() {
+    return values.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return "SettingsSnapshot" + values;
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.settings;
+
+import javax.swing.JComboBox;
+import javax.swing.JComponent;
+import javax.swing.JSlider;
+import javax.swing.JSpinner;
+import javax.swing.JToggleButton;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.JTextComponent;
+
+/**
+ * Subscribes to value changes of the Swing components commonly used in settings UIs.
+ *
+ * <p>Only components whose whole state is covered by the events are supported, so that a {@link
+ * SettingComponent} getter reading the component can't change without an event. For example,
+ * typing into an editable combo box changes its editor without an item event, so editable combo
+ * boxes aren't supported.
+ */
+final class SwingChangeEvents {
+
+  private SwingChangeEvents() {}
+
+  /**
+   * Calls {@code listener} whenever the value of {@code component} may have changed.
+   *
+   * <p>Whether a combo box is supported depends on whether it is editable when this is called, so
+   * components must not be made editable afterwards.
+   *
+   * @return false if the type of {@code component} isn't supported, and nothing was registered
+   */
+  static boolean addListener(JComponent component, Runnable listener) {
+    if (component instanceof JToggleButton) {
+      ((JToggleButton) component).addItemListener(e -> listener.run());
+      return true;
+    }
+    if (component instanceof JComboBox && !((JComboBox<?>) component).isEditable()) {
+      ((JComboBox<?>) component).addItemListener(e -> listener.run());
+      return true;
+    }
+    if (component instanceof JTextComponent) {
+      ((JTextComponent) component).getDocument().addDocumentListener(new DocumentAdapter(listener));
+      return true;
+    }
+    if (component instanceof JSpinner) {
+      ((JSpinner) component).addChangeListener(e -> listener.run());
+      return true;
+    }
+    if (component instanceof JSlider) {
+      ((JSlider) component).addChangeListener(e -> listener.run());
+      return true;
+    }
+    return false;
+  }
+
+  private static final class DocumentAdapter implements DocumentListener {
+    private final Runnable listener;
+
+    DocumentAdapter(Runnable listener) {
+      this.listener = listener;
+    }
+
+    @Override
+    public void insertUpdate(DocumentEvent e) {
+      listener.run();
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent e) {
+      listener.run();
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent e) {
+      listener.run();
+    }
+  }
+}
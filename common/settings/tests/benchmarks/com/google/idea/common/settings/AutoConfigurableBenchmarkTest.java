@@ -0,0 +1,185 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.settings;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.idea.common.settings.SettingComponent.LabeledComponent;
+import com.google.idea.common.settings.SettingComponent.SimpleComponent;
+import com.google.idea.common.settings.SettingsBenchmarkHarness.Measurement;
+import com.google.idea.testing.IntellijRule;
+import com.intellij.openapi.options.ConfigurationException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Benchmarks {@link AutoConfigurable} and {@link SettingComponentBindings} on pages of 10, 100 and
+ * 1000 settings, mixing checkboxes, enum combo boxes and text fields.
+ *
+ * <p>Measurements are printed, and written as JSON to the test's undeclared outputs when running
+ * under Bazel. The number of iterations can be scaled with {@code
+ * --jvmopt=-Dsettings.benchmark.scale=N}.
+ */
+@RunWith(JUnit4.class)
+public class AutoConfigurableBenchmarkTest {
+
+  private static final int[] PAGE_SIZES = {10, 100, 1000};
+  private static final int SCALE = Integer.getInteger("settings.benchmark.scale", 1);
+  // The number of setting operations per measurement, split into iterations by page size.
+  private static final int OPERATIONS = 100_000;
+
+  @Rule public IntellijRule intellij = new IntellijRule();
+
+  private enum Mode {
+    AUTOMATIC,
+    MANUAL,
+    DISABLED
+  }
+
+  /** The settings object, with one value per setting. */
+  private static final class Settings {
+    final boolean[] flags;
+    final Mode[] modes;
+    final String[] texts;
+
+    Settings(int size) {
+      flags = new boolean[size];
+      modes = new Mode[size];
+      texts = new String[size];
+      Arrays.fill(modes, Mode.AUTOMATIC);
+      Arrays.fill(texts, "");
+    }
+  }
+
+  @Test
+  public void testPageScaling() throws Exception {
+    List<Measurement> measurements = new ArrayList<>();
+    for (int size : PAGE_SIZES) {
+      measurements.addAll(benchmarkPage(size));
+    }
+    SettingsBenchmarkHarness.report("auto_configurable_benchmark.json", measurements);
+  }
+
+  private static List<Measurement> benchmarkPage(int size) {
+    Settings settingsObject = new Settings(size);
+    ImmutableList<ConfigurableSetting<?, ?>> settings = createSettings(size, settingsObject);
+    int iterations = Math.max(5, SCALE * OPERATIONS / size);
+    int warmup = Math.max(2, iterations / 10);
+    String suffix = "/" + size;
+
+    List<Measurement> measurements = new ArrayList<>();
+    // creating Swing components is far slower than the other operations, so run it less often
+    measurements.add(
+        SettingsBenchmarkHarness.measure(
+            "createComponent" + suffix,
+            warmup / 10 + 1,
+            iterations / 10 + 1,
+            () -> new AutoConfigurable(settings) {}.createComponent()));
+
+    AutoConfigurable page = new AutoConfigurable(settings) {};
+    page.createComponent();
+    page.reset();
+    assertThat(page.isModified()).isFalse();
+
+    measurements.add(
+        SettingsBenchmarkHarness.measure(
+            "isModified" + suffix, warmup, iterations, page::isModified));
+
+    @SuppressWarnings("unchecked") // the first setting is always a checkbox
+    ConfigurableSetting<Boolean, SimpleComponent<Boolean, ?>> checkbox =
+        (ConfigurableSetting<Boolean, SimpleComponent<Boolean, ?>>) settings.get(0);
+    SimpleComponent<Boolean, ?> checkboxComponent = page.getComponent(checkbox);
+    measurements.add(
+        SettingsBenchmarkHarness.measure(
+            "isModifiedAfterEdit" + suffix,
+            warmup,
+            iterations,
+            () -> {
+              checkboxComponent.setValue(!checkboxComponent.getValue());
+              assertThat(page.isModified()).isTrue();
+              checkboxComponent.setValue(!checkboxComponent.getValue());
+            }));
+
+    measurements.add(
+        SettingsBenchmarkHarness.measure(
+            "applyAfterEdit" + suffix,
+            warmup,
+            iterations,
+            () -> {
+              checkboxComponent.setValue(!checkboxComponent.getValue());
+              applyUnchecked(page);
+            }));
+    assertThat(page.isModified()).isFalse();
+
+    measurements.add(
+        SettingsBenchmarkHarness.measure(
+            "applyUnmodified" + suffix, warmup, iterations, () -> applyUnchecked(page)));
+    measurements.add(
+        SettingsBenchmarkHarness.measure("reset" + suffix, warmup, iterations, page::reset));
+    assertThat(page.isModified()).isFalse();
+    return measurements;
+  }
+
+  private static void applyUnchecked(AutoConfigurable page) {
+    try {
+      page.apply();
+    } catch (ConfigurationException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private static ImmutableList<ConfigurableSetting<?, ?>> createSettings(
+      int size, Settings settingsObject) {
+    ImmutableList.Builder<ConfigurableSetting<?, ?>> settings = ImmutableList.builder();
+    for (int i = 0; i < size; i++) {
+      int index = i;
+      ConfigurableSetting.Builder<Settings> builder =
+          ConfigurableSetting.builder(() -> settingsObject).label("Setting " + i);
+      switch (i % 3) {
+        case 0:
+          settings.add(
+              builder
+                  .getter(s -> s.flags[index])
+                  .setter((s, value) -> s.flags[index] = value)
+                  .componentFactory(SimpleComponent::createCheckBox));
+          break;
+        case 1:
+          settings.add(
+              builder
+                  .getter(s -> s.modes[index])
+                  .setter((s, value) -> s.modes[index] = value)
+                  .componentFactory(LabeledComponent.comboBoxFactory(Mode.class)));
+          break;
+        default:
+          settings.add(
+              builder
+                  .getter(s -> s.texts[index])
+                  .setter((s, value) -> s.texts[index] = value)
+                  .componentFactory(LabeledComponent.textFieldFactory()));
+      }
+    }
+    return settings.build();
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.settings;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.idea.common.settings.SettingComponent.SimpleComponent;
+import com.google.idea.common.settings.SettingsBenchmarkHarness.Measurement;
+import com.google.idea.testing.IntellijRule;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.swing.JLabel;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Benchmarks {@link AutoConfigurable#isModified()} on a page of {@value #SETTINGS} settings, with
+ * setting properties created by {@link Property#create} and {@link Property#createCached}.
+ *
+ * <p>The components don't report changes, so {@code isModified()} has to poll every setting, and
+ * the settings object is looked up in a map, as services are.
+ */
+@RunWith(JUnit4.class)
+public class PropertyAccessBenchmarkTest {
+
+  private static final int SETTINGS = 500;
+  private static final int WARMUP = 200;
+  private static final int ITERATIONS = 1000;
+
+  @Rule public IntellijRule intellij = new IntellijRule();
+
+  /** The settings object, with one value per setting. */
+  private static final class Settings {
+    final int[] values = new int[SETTINGS];
+  }
+
+  private final Map<Class<?>, Object> services = new ConcurrentHashMap<>();
+  private final AtomicInteger lookups = new AtomicInteger();
+
+  private final Supplier<Settings> settingsProvider =
+      () -> {
+        lookups.incrementAndGet();
+        return (Settings) services.get(Settings.class);
+      };
+
+  @Test
+  public void testIsModifiedWithCachedObject() throws Exception {
+    services.put(Settings.class, new Settings());
+
+    AutoConfigurable uncached = createPage(/* cached= */ false);
+    int uncachedLookups = lookupsPerIsModified(uncached);
+    Measurement before =
+        SettingsBenchmarkHarness.measure(
+            "isModified(500 settings, create)", WARMUP, ITERATIONS, uncached::isModified);
+
+    AutoConfigurable cached = createPage(/* cached= */ true);
+    int cachedLookups = lookupsPerIsModified(cached);
+    Measurement after =
+        SettingsBenchmarkHarness.measure(
+            "isModified(500 settings, createCached)", WARMUP, ITERATIONS, cached::isModified);
+
+    SettingsBenchmarkHarness.report(
+        "property_access_benchmark.json", ImmutableList.of(before, after));
+
+    assertThat(uncachedLookups).isEqualTo(SETTINGS);
+    assertThat(cachedLookups).isEqualTo(0);
+  }
+
+  private int lookupsPerIsModified(AutoConfigurable page) {
+    lookups.set(0);
+    page.isModified();
+    return lookups.get();
+  }
+
+  private AutoConfigurable createPage(boolean cached) {
+    ImmutableList.Builder<ConfigurableSetting<?, ?>> settings = ImmutableList.builder();
+    for (int i = 0; i < SETTINGS; i++) {
+      int index = i;
+      Property.Getter<Settings, Integer> getter = s -> s.values[index];
+      Property.Setter<Settings, Integer> setter = (s, value) -> s.values[index] = value;
+      settings.add(
+          ConfigurableSetting.create(
+              SearchableText.withLabel("Setting " + i).build(),
+              cached
+                  ? Property.createCached(settingsProvider, getter, setter)
+                  : Property.create(settingsProvider, getter, setter),
+              /* hideCondition= */ null,
+              label -> createUntrackedComponent()));
+    }
+    AutoConfigurable page = new AutoConfigurable(settings.build()) {};
+    page.createComponent();
+    page.reset();
+    return page;
+  }
+
+  private static SimpleComponent<Integer, JLabel> createUntrackedComponent() {
+    int[] value = new int[1];
+    return SimpleComponent.create(new JLabel(), label -> value[0], (label, v) -> value[0] = v);
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.settings;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Measures the latency and allocation of settings framework operations.
+ *
+ * <p>Each operation is run for a number of warmup iterations first, then timed over the measured
+ * iterations. Allocation is read from the current thread's allocation counter, where the JVM
+ * supports it, and reported as -1 otherwise.
+ */
+final class SettingsBenchmarkHarness {
+
+  private SettingsBenchmarkHarness() {}
+
+  /** The result of measuring a single operation. */
+  static final class Measurement {
+    final String name;
+    final int iterations;
+    final double nanosPerOp;
+    final long bytesPerOp;
+
+    Measurement(String name, int iterations, double nanosPerOp, long bytesPerOp) {
+      this.name = name;
+      this.iterations = iterations;
+      this.nanosPerOp = nanosPerOp;
+      this.bytesPerOp = bytesPerOp;
+    }
+
+    String toJson() {
+      return String.format(
+          Locale.ROOT,
+          "{\"name\": \"%s\", \"iterations\": %d, \"nanosPerOp\": %.1f, \"bytesPerOp\": %d}",
+          name,
+          iterations,
+          nanosPerOp,
+          bytesPerOp);
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          Locale.ROOT, "%-40s %12.1f ns/op %10d B/op", name, nanosPerOp, bytesPerOp);
+    }
+  }
+
+  /** Runs {@code operation} {@code warmup} times, then measures {@code iterations} runs. */
+  static Measurement measure(String name, int warmup, int iterations, Runnable operation) {
+    for (int i = 0; i < warmup; i++) {
+      operation.run();
+    }
+    long bytesBefore = allocatedBytes();
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      operation.run();
+    }
+    long elapsed = System.nanoTime() - start;
+    long bytesAfter = allocatedBytes();
+    long bytesPerOp = bytesBefore < 0 ? -1 : (bytesAfter - bytesBefore) / iterations;
+    return new Measurement(name, iterations, (double) elapsed / iterations, bytesPerOp);
+  }
+
+  private static long allocatedBytes() {
+    if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean bean =
+          (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+      if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Prints the measurements, and writes them as JSON to the test's undeclared outputs when
+   * running under Bazel.
+   */
+  static void report(String fileName, List<Measurement> measurements) throws IOException {
+    measurements.forEach(System.out::println);
+    String outputs = System.getenv("TEST_UNDECLARED_OUTPUTS_DIR");
+    if (outputs == null) {
+      return;
+    }
+    List<String> json =
+        measurements.stream().map(Measurement::toJson).collect(Collectors.toList());
+    Files.writeString(
+        Path.of(outputs, fileName),
+        "[" + String.join(",\n", json) + "]\n",
+        StandardCharsets.UTF_8);
+  }
+}
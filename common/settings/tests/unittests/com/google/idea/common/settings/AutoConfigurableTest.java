@@ -0,0 +1,263 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.settings;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.idea.common.settings.SettingComponent.LabeledComponent;
+import com.google.idea.common.settings.SettingComponent.SimpleComponent;
+import com.intellij.ui.components.JBCheckBox;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link AutoConfigurable}. */
+@RunWith(JUnit4.class)
+public class AutoConfigurableTest {
+
+  private static final class TestSettings {
+    boolean enabled;
+    String name = "name";
+    int count;
+  }
+
+  private final TestSettings settings = new TestSettings();
+
+  private final ConfigurableSetting<Boolean, SimpleComponent<Boolean, JBCheckBox>> enabled =
+      ConfigurableSetting.builder(() -> settings)
+          .label("Enabled")
+          .getter((TestSettings s) -> s.enabled)
+          .setter((s, value) -> s.enabled = value)
+          .componentFactory(SimpleComponent::createCheckBox);
+
+  private ConfigurableSetting<String, LabeledComponent<String, JTextField>> name(
+      ConfigurableSetting.Builder<TestSettings> builder) {
+    return builder
+        .label("Name")
+        .getter((TestSettings s) -> s.name)
+        .setter((s, value) -> s.name = value)
+        .componentFactory(LabeledComponent.textFieldFactory());
+  }
+
+  private static AutoConfigurable configurable(ConfigurableSetting<?, ?>... settings) {
+    return new AutoConfigurable(ImmutableList.copyOf(settings)) {};
+  }
+
+  @Test
+  public void reactiveConditionFollowsDependency() {
+    AtomicInteger evaluations = new AtomicInteger();
+    ConfigurableSetting<String, ?> name =
+        name(
+            ConfigurableSetting.builder(() -> settings)
+                .showIf(
+                    enabled,
+                    value -> {
+                      evaluations.incrementAndGet();
+                      return value;
+                    }));
+    AutoConfigurable configurable = configurable(enabled, name);
+    JPanel panel = (JPanel) configurable.createComponent();
+    configurable.reset();
+
+    assertThat(panel.getComponentCount()).isEqualTo(2);
+    assertThat(configurable.getRootComponent(name).isVisible()).isFalse();
+
+    int before = evaluations.get();
+    configurable.getComponent(enabled).setValue(true);
+    assertThat(configurable.getRootComponent(name).isVisible()).isTrue();
+    assertThat(evaluations.get()).isEqualTo(before + 1);
+
+    configurable.getComponent(name).setValue("other");
+    assertThat(evaluations.get()).isEqualTo(before + 1);
+
+    configurable.reset();
+    assertThat(configurable.getRootComponent(name).isVisible()).isFalse();
+  }
+
+  @Test
+  public void staticConditionLeavesSettingOut() {
+    ConfigurableSetting<String, ?> name =
+        name(ConfigurableSetting.builder(() -> settings).hideIf(() -> true));
+    AutoConfigurable configurable = configurable(enabled, name);
+
+    JPanel panel = (JPanel) configurable.createComponent();
+
+    assertThat(panel.getComponentCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void untrackedDependencyIsRejected() {
+    ConfigurableSetting<Integer, SimpleComponent<Integer, JPanel>> count =
+        ConfigurableSetting.builder(() -> settings)
+            .label("Count")
+            .getter((TestSettings s) -> s.count)
+            .setter((s, value) -> s.count = value)
+            .componentFactory(
+                label -> {
+                  int[] value = {0};
+                  return SimpleComponent.create(
+                      new JPanel(), panel -> value[0], (panel, v) -> value[0] = v);
+                });
+    ConfigurableSetting<String, ?> name =
+        name(ConfigurableSetting.builder(() -> settings).showIf(count, value -> value > 0));
+    AutoConfigurable configurable = configurable(count, name);
+
+    Assert.assertThrows(IllegalStateException.class, configurable::createComponent);
+  }
+
+  @Test
+  public void reactiveConditionWithoutDependenciesIsRejected() {
+    Assert.assertThrows(
+        IllegalArgumentException.class,
+        () -> ConfigurableSetting.builder(() -> settings).hideIf(values -> true));
+    Assert.assertThrows(
+        IllegalArgumentException.class,
+        () -> ConfigurableSetting.builder(() -> settings).showIf(values -> true));
+  }
+
+  @Test
+  public void applyNotifiesListenersOnceWithChangedSettings() throws Exception {
+    ConfigurableSetting<String, ?> name = name(ConfigurableSetting.builder(() -> settings));
+    AutoConfigurable configurable = configurable(enabled, name);
+    List<List<ConfigurableSetting<?, ?>>> notifications = new ArrayList<>();
+    configurable.addSettingsChangedListener(notifications::add, () -> {});
+    configurable.createComponent();
+    configurable.reset();
+
+    configurable.apply();
+    assertThat(notifications).isEmpty();
+
+    configurable.getComponent(enabled).setValue(true);
+    assertThat(configurable.isModified()).isTrue();
+    configurable.apply();
+
+    assertThat(settings.enabled).isTrue();
+    assertThat(configurable.isModified()).isFalse();
+    assertThat(notifications).containsExactly(ImmutableList.of(enabled));
+  }
+
+  private ConfigurableSetting<String, LabeledComponent<String, JTextField>> identifiedName(
+      String id) {
+    return ConfigurableSetting.builder(() -> settings)
+        .label("Name")
+        .getter((TestSettings s) -> s.name)
+        .setter((s, value) -> s.name = value)
+        .id(id, String.class)
+        .componentFactory(LabeledComponent.textFieldFactory());
+  }
+
+  private ConfigurableSetting<Boolean, SimpleComponent<Boolean, JBCheckBox>> identifiedEnabled() {
+    return ConfigurableSetting.builder(() -> settings)
+        .label("Enabled")
+        .getter((TestSettings s) -> s.enabled)
+        .setter((s, value) -> s.enabled = value)
+        .id("enabled", Boolean.class)
+        .componentFactory(SimpleComponent::createCheckBox);
+  }
+
+  @Test
+  public void exportKeysSettingsById() {
+    AutoConfigurable configurable =
+        configurable(enabled, identifiedName("first"), identifiedName("second"));
+
+    SettingsSnapshot snapshot = configurable.exportSettings();
+
+    assertThat(snapshot.asMap()).containsExactly("first", "name", "second", "name").inOrder();
+  }
+
+  @Test
+  public void duplicateIdsAreRejected() {
+    Assert.assertThrows(
+        IllegalArgumentException.class,
+        () -> configurable(identifiedName("name"), identifiedName("name")));
+  }
+
+  @Test
+  public void importWritesOnlyDifferingValues() {
+    ConfigurableSetting<Boolean, ?> enabled = identifiedEnabled();
+    ConfigurableSetting<String, ?> name = identifiedName("name");
+    AutoConfigurable configurable = configurable(enabled, name);
+    List<List<ConfigurableSetting<?, ?>>> notifications = new ArrayList<>();
+    configurable.addSettingsChangedListener(notifications::add, () -> {});
+    configurable.createComponent();
+    configurable.reset();
+
+    ImmutableList<ConfigurableSetting<?, ?>> changed =
+        configurable.importSettings(
+            SettingsSnapshot.of(Map.of("enabled", true, "name", "name", "unknown", 1)));
+
+    assertThat(changed).containsExactly(enabled);
+    assertThat(settings.enabled).isTrue();
+    assertThat(configurable.getComponent(enabled).getValue()).isTrue();
+    assertThat(configurable.isModified()).isFalse();
+    assertThat(notifications).containsExactly(ImmutableList.of(enabled));
+  }
+
+  @Test
+  public void importRoundTrip() {
+    AutoConfigurable configurable = configurable(identifiedEnabled(), identifiedName("name"));
+    SettingsSnapshot exported = configurable.exportSettings();
+    settings.enabled = true;
+    settings.name = "other";
+
+    configurable.importSettings(exported);
+
+    assertThat(settings.enabled).isFalse();
+    assertThat(settings.name).isEqualTo("name");
+    assertThat(configurable.exportSettings()).isEqualTo(exported);
+  }
+
+  @Test
+  public void importValidatesAllValuesBeforeWriting() {
+    AutoConfigurable configurable = configurable(identifiedEnabled(), identifiedName("name"));
+
+    Assert.assertThrows(
+        IllegalArgumentException.class,
+        () -> configurable.importSettings(SettingsSnapshot.of(Map.of("enabled", true, "name", 1))));
+
+    assertThat(settings.enabled).isFalse();
+    assertThat(settings.name).isEqualTo("name");
+  }
+
+  @Test
+  public void importRejectsNullForPrimitiveSetting() {
+    AutoConfigurable configurable = configurable(identifiedEnabled(), identifiedName("name"));
+    Map<String, Object> values = new HashMap<>();
+    values.put("name", null);
+    values.put("enabled", null);
+
+    Assert.assertThrows(
+        IllegalArgumentException.class,
+        () -> configurable.importSettings(SettingsSnapshot.of(values)));
+    assertThat(settings.name).isEqualTo("name");
+
+    values.remove("enabled");
+    configurable.importSettings(SettingsSnapshot.of(values));
+    assertThat(settings.name).isNull();
+  }
+}
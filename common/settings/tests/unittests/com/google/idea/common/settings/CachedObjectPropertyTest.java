@@ -0,0 +1,118 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.settings;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.idea.common.settings.SettingComponent.LabeledComponent;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link CachedObjectProperty}. */
+@RunWith(JUnit4.class)
+public class CachedObjectPropertyTest {
+
+  private static final class TestSettings {
+    String value = "value";
+  }
+
+  @Test
+  public void objectIsReusedUntilInvalidated() {
+    TestSettings settings = new TestSettings();
+    int[] lookups = {0};
+    Property<String> property =
+        Property.createCached(
+            () -> {
+              lookups[0]++;
+              return settings;
+            },
+            s -> s.value,
+            (s, value) -> s.value = value);
+
+    property.setValue("other");
+    assertThat(property.getValue()).isEqualTo("other");
+    assertThat(lookups[0]).isEqualTo(1);
+
+    Property.invalidateCachedObjects();
+    property.getValue();
+
+    assertThat(lookups[0]).isEqualTo(2);
+  }
+
+  @Test
+  public void objectIsNotRetained() {
+    List<WeakReference<TestSettings>> resolved = new ArrayList<>();
+    Property<String> property =
+        Property.createCached(
+            () -> {
+              TestSettings settings = new TestSettings();
+              resolved.add(new WeakReference<>(settings));
+              return settings;
+            },
+            s -> s.value,
+            (s, value) -> s.value = value);
+
+    assertThat(property.getValue()).isEqualTo("value");
+    collect(resolved.get(0));
+
+    assertThat(property.getValue()).isEqualTo("value");
+    assertThat(resolved).hasSize(2);
+  }
+
+  @Test
+  public void settingsObjectIsOnlyCachedOnRequest() {
+    TestSettings settings = new TestSettings();
+    int[] lookups = {0};
+    ConfigurableSetting.TypedBuilder<TestSettings, String> builder =
+        ConfigurableSetting.builder(
+                () -> {
+                  lookups[0]++;
+                  return settings;
+                })
+            .label("Value")
+            .getter((TestSettings s) -> s.value)
+            .setter((s, value) -> s.value = value);
+    Property<String> uncached =
+        builder.componentFactory(LabeledComponent.textFieldFactory()).setting();
+    Property<String> cached =
+        builder
+            .cacheSettingsObject()
+            .componentFactory(LabeledComponent.textFieldFactory())
+            .setting();
+
+    uncached.getValue();
+    uncached.getValue();
+    assertThat(lookups[0]).isEqualTo(2);
+
+    cached.getValue();
+    cached.getValue();
+    assertThat(lookups[0]).isEqualTo(3);
+  }
+
+  private static void collect(WeakReference<?> reference) {
+    for (int i = 0; i < 100 && reference.get() != null; i++) {
+      System.gc();
+    }
+    assertThat(reference.get()).isNull();
+  }
+}
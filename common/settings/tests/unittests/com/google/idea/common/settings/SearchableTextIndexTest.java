@@ -0,0 +1,137 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.settings;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableList;
+import com.google.idea.common.settings.SearchableTextIndex.Entry;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link SearchableTextIndex}. */
+@RunWith(JUnit4.class)
+public class SearchableTextIndexTest {
+
+  private static final class TestProvider implements SearchableTextProvider {
+    private final String id;
+    private final String displayName;
+    private final ImmutableList<SearchableText> texts;
+
+    TestProvider(String id, String displayName, SearchableText... texts) {
+      this.id = id;
+      this.displayName = displayName;
+      this.texts = ImmutableList.copyOf(texts);
+    }
+
+    @Override
+    public String getConfigurableId() {
+      return id;
+    }
+
+    @Override
+    public String getDisplayName() {
+      return displayName;
+    }
+
+    @Override
+    public ImmutableCollection<SearchableText> getSearchableTexts() {
+      return texts;
+    }
+  }
+
+  @Test
+  public void readsWhatWasWritten() throws IOException {
+    ImmutableList<Entry> entries =
+        roundTrip(
+            new TestProvider(
+                "first.id",
+                "First",
+                SearchableText.forLabel("Plain label"),
+                SearchableText.withLabel("Tagged").addTags("one", "two").build()),
+            new TestProvider("second.id", "Second"));
+
+    assertThat(entries).hasSize(2);
+    assertThat(entries.get(0).getConfigurableId()).isEqualTo("first.id");
+    assertThat(entries.get(0).getDisplayName()).isEqualTo("First");
+    assertThat(entries.get(0).getTexts())
+        .containsExactly(
+            SearchableText.forLabel("Plain label"),
+            SearchableText.withLabel("Tagged").addTags("one", "two").build())
+        .inOrder();
+    assertThat(entries.get(1).getConfigurableId()).isEqualTo("second.id");
+    assertThat(entries.get(1).getTexts()).isEmpty();
+  }
+
+  @Test
+  public void textLabelledLikeARecordTypeIsNotAConfigurable() throws IOException {
+    SearchableText text = SearchableText.withLabel("configurable").addTags("a", "b").build();
+
+    ImmutableList<Entry> entries = roundTrip(new TestProvider("id", "Name", text));
+
+    assertThat(entries).hasSize(1);
+    assertThat(entries.get(0).getTexts()).containsExactly(text);
+  }
+
+  @Test
+  public void escapesSeparators() throws IOException {
+    SearchableText text =
+        SearchableText.withLabel("tab\there").addTags("new\nline", "back\\slash", "").build();
+
+    ImmutableList<Entry> entries = roundTrip(new TestProvider("i\td", "na\\me\n", text));
+
+    assertThat(entries.get(0).getConfigurableId()).isEqualTo("i\td");
+    assertThat(entries.get(0).getDisplayName()).isEqualTo("na\\me\n");
+    assertThat(entries.get(0).getTexts()).containsExactly(text);
+  }
+
+  @Test
+  public void escapesCarriageReturns() throws IOException {
+    SearchableText text =
+        SearchableText.withLabel("carriage\rreturn").addTags("windows\r\nline", "\r").build();
+
+    ImmutableList<Entry> entries = roundTrip(new TestProvider("id\r", "Name\r\n", text));
+
+    assertThat(entries).hasSize(1);
+    assertThat(entries.get(0).getConfigurableId()).isEqualTo("id\r");
+    assertThat(entries.get(0).getDisplayName()).isEqualTo("Name\r\n");
+    assertThat(entries.get(0).getTexts()).containsExactly(text);
+  }
+
+  @Test
+  public void rejectsMalformedRecords() {
+    Assert.assertThrows(
+        IOException.class, () -> SearchableTextIndex.read(new StringReader("unknown\tx\n")));
+    Assert.assertThrows(
+        IOException.class, () -> SearchableTextIndex.read(new StringReader("text\tlabel\n")));
+  }
+
+  private static ImmutableList<Entry> roundTrip(SearchableTextProvider... providers)
+      throws IOException {
+    StringWriter out = new StringWriter();
+    SearchableTextIndex.write(ImmutableList.copyOf(providers), out);
+    return SearchableTextIndex.read(new StringReader(out.toString()));
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.settings;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.idea.common.settings.SettingComponent.LabeledComponent;
+import com.google.idea.common.settings.SettingComponent.SimpleComponent;
+import com.intellij.ui.components.JBCheckBox;
+import javax.swing.JComboBox;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link SettingComponentBindings}. */
+@RunWith(JUnit4.class)
+public class SettingComponentBindingsTest {
+
+  private static final class TestSettings {
+    boolean enabled;
+    String name = "name";
+    String choice = "a";
+    int count;
+  }
+
+  private final TestSettings settings = new TestSettings();
+
+  private final ConfigurableSetting<Boolean, SimpleComponent<Boolean, JBCheckBox>> enabled =
+      ConfigurableSetting.builder(() -> settings)
+          .label("Enabled")
+          .getter((TestSettings s) -> s.enabled)
+          .setter((s, value) -> s.enabled = value)
+          .componentFactory(SimpleComponent::createCheckBox);
+
+  private final ConfigurableSetting<String, LabeledComponent<String, JTextField>> name =
+      ConfigurableSetting.builder(() -> settings)
+          .label("Name")
+          .getter((TestSettings s) -> s.name)
+          .setter((s, value) -> s.name = value)
+          .componentFactory(LabeledComponent.textFieldFactory());
+
+  private final ConfigurableSetting<String, SimpleComponent<String, JComboBox<String>>> choice =
+      ConfigurableSetting.builder(() -> settings)
+          .label("Choice")
+          .getter((TestSettings s) -> s.choice)
+          .setter((s, value) -> s.choice = value)
+          .componentFactory(
+              label -> {
+                JComboBox<String> comboBox = new JComboBox<>(new String[] {"a", "b"});
+                comboBox.setEditable(true);
+                return SimpleComponent.create(
+                    comboBox,
+                    c -> (String) c.getEditor().getItem(),
+                    (c, value) -> c.getEditor().setItem(value));
+              });
+
+  private final ConfigurableSetting<Integer, SimpleComponent<Integer, JPanel>> count =
+      ConfigurableSetting.builder(() -> settings)
+          .label("Count")
+          .getter((TestSettings s) -> s.count)
+          .setter((s, value) -> s.count = value)
+          .componentFactory(
+              label -> {
+                int[] value = {0};
+                return SimpleComponent.create(
+                    new JPanel(), panel -> value[0], (panel, v) -> value[0] = v);
+              });
+
+  private SettingComponentBindings createBindings() {
+    SettingComponentBindings bindings =
+        SettingComponentBindings.create(ImmutableList.of(enabled, name, choice, count));
+    for (ConfigurableSetting<?, ?> setting : ImmutableList.of(enabled, name, choice, count)) {
+      bindings.getComponent(setting);
+    }
+    bindings.resetComponents();
+    return bindings;
+  }
+
+  @Test
+  public void onlyComponentsCoveredByEventsAreTracked() {
+    SettingComponentBindings bindings = createBindings();
+
+    assertThat(bindings.isTracked(enabled)).isTrue();
+    assertThat(bindings.isTracked(name)).isTrue();
+    assertThat(bindings.isTracked(choice)).isFalse();
+    assertThat(bindings.isTracked(count)).isFalse();
+  }
+
+  @Test
+  public void trackedEditsAreCounted() {
+    SettingComponentBindings bindings = createBindings();
+    assertThat(bindings.isModified()).isFalse();
+
+    bindings.getComponent(enabled).setValue(true);
+    bindings.getComponent(name).getComponent().setText("other");
+    assertThat(bindings.isModified()).isTrue();
+
+    bindings.getComponent(enabled).setValue(false);
+    assertThat(bindings.isModified()).isTrue();
+
+    bindings.getComponent(name).getComponent().setText("name");
+    assertThat(bindings.isModified()).isFalse();
+  }
+
+  @Test
+  public void typingIntoEditableComboBoxIsModification() {
+    SettingComponentBindings bindings = createBindings();
+
+    JComboBox<String> comboBox = bindings.getComponent(choice).getRootComponent();
+    ((JTextField) comboBox.getEditor().getEditorComponent()).setText("typed");
+
+    assertThat(bindings.isModified()).isTrue();
+  }
+
+  @Test
+  public void untrackedComponentsArePolled() {
+    SettingComponentBindings bindings = createBindings();
+
+    bindings.getComponent(count).setValue(3);
+    assertThat(bindings.isModified()).isTrue();
+
+    settings.count = 3;
+    assertThat(bindings.isModified()).isFalse();
+  }
+
+  @Test
+  public void trackedComponentsAreComparedWithSettingValueOfLastReset() {
+    SettingComponentBindings bindings = createBindings();
+
+    settings.name = "changed elsewhere";
+    assertThat(bindings.isModified()).isFalse();
+
+    bindings.resetComponents(ImmutableList.of(name));
+    assertThat(bindings.getComponent(name).getValue()).isEqualTo("changed elsewhere");
+    assertThat(bindings.isModified()).isFalse();
+
+    bindings.getComponent(name).setValue("name");
+    assertThat(bindings.isModified()).isTrue();
+  }
+
+  @Test
+  public void isModifiedDoesNotReadTrackedSettings() {
+    int[] reads = {0};
+    ConfigurableSetting<String, LabeledComponent<String, JTextField>> counted =
+        ConfigurableSetting.builder(() -> settings)
+            .label("Counted")
+            .getter(
+                (TestSettings s) -> {
+                  reads[0]++;
+                  return s.name;
+                })
+            .setter((s, value) -> s.name = value)
+            .componentFactory(LabeledComponent.textFieldFactory());
+    SettingComponentBindings bindings = SettingComponentBindings.create(ImmutableList.of(counted));
+    bindings.getComponent(counted);
+    bindings.resetComponents();
+    reads[0] = 0;
+
+    bindings.getComponent(counted).setValue("edited");
+    assertThat(bindings.isModified()).isTrue();
+    bindings.getComponent(counted).setValue("name");
+    assertThat(bindings.isModified()).isFalse();
+
+    assertThat(reads[0]).isEqualTo(0);
+  }
+
+  @Test
+  public void applyWritesOnlyModifiedSettings() {
+    SettingComponentBindings bindings = createBindings();
+    bindings.getComponent(name).setValue("other");
+    bindings.getComponent(count).setValue(5);
+
+    ImmutableList<ConfigurableSetting<?, ?>> changed = bindings.applySettings();
+
+    assertThat(changed).containsExactly(name, count).inOrder();
+    assertThat(settings.name).isEqualTo("other");
+    assertThat(settings.count).isEqualTo(5);
+    assertThat(bindings.isModified()).isFalse();
+    assertThat(bindings.applySettings()).isEmpty();
+  }
+
+  @Test
+  public void resetDiscardsEdits() {
+    SettingComponentBindings bindings = createBindings();
+    bindings.getComponent(enabled).setValue(true);
+    bindings.getComponent(count).setValue(5);
+
+    bindings.resetComponents();
+
+    assertThat(bindings.getComponent(enabled).getValue()).isFalse();
+    assertThat(bindings.getComponent(count).getValue()).isEqualTo(0);
+    assertThat(bindings.isModified()).isFalse();
+  }
+
+  @Test
+  public void componentsAreCreatedLazily() {
+    SettingComponentBindings bindings =
+        SettingComponentBindings.create(ImmutableList.of(enabled, name));
+    bindings.getComponent(enabled);
+    bindings.resetComponents();
+
+    settings.name = "changed";
+    assertThat(bindings.isModified()).isFalse();
+
+    assertThat(bindings.getComponent(name).getValue()).isEqualTo("changed");
+    assertThat(bindings.isModified()).isFalse();
+  }
+}
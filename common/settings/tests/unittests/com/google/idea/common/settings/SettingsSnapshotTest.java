@@ -0,0 +1,76 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.settings;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link SettingsSnapshot}. */
+@RunWith(JUnit4.class)
+public class SettingsSnapshotTest {
+
+  private static final SettingsSnapshot BASE =
+      SettingsSnapshot.of(ImmutableMap.of("a", 1, "b", "b", "c", true));
+
+  @Test
+  public void diffContainsChangedAndOneSidedIds() {
+    SettingsSnapshot other = SettingsSnapshot.of(ImmutableMap.of("a", 2, "b", "b", "d", false));
+
+    assertThat(BASE.diff(other)).containsExactly("a", "c", "d");
+    assertThat(other.diff(BASE)).containsExactly("a", "d", "c");
+    assertThat(BASE.diff(BASE)).isEmpty();
+  }
+
+  @Test
+  public void deltaFromKeepsOnlyDifferingEntries() {
+    SettingsSnapshot other = SettingsSnapshot.of(ImmutableMap.of("a", 2, "b", "b", "d", false));
+
+    assertThat(other.deltaFrom(BASE).asMap()).containsExactly("a", 2, "d", false).inOrder();
+    assertThat(BASE.deltaFrom(BASE)).isEqualTo(SettingsSnapshot.empty());
+  }
+
+  @Test
+  public void nullValuesAreContained() {
+    Map<String, Object> values = new HashMap<>();
+    values.put("a", null);
+    SettingsSnapshot snapshot = SettingsSnapshot.of(values);
+
+    assertThat(snapshot.contains("a")).isTrue();
+    assertThat(snapshot.get("a")).isNull();
+    assertThat(snapshot.diff(SettingsSnapshot.of(ImmutableMap.of("a", 1)))).containsExactly("a");
+    assertThat(snapshot.diff(SettingsSnapshot.empty())).containsExactly("a");
+  }
+
+  @Test
+  public void snapshotIsDetachedFromSourceMap() {
+    Map<String, Object> values = new HashMap<>();
+    values.put("a", 1);
+    SettingsSnapshot snapshot = SettingsSnapshot.of(values);
+
+    values.put("a", 2);
+
+    assertThat(snapshot.get("a")).isEqualTo(1);
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.settings.tools;
+
+import com.google.common.collect.ImmutableList;
+import com.google.idea.common.settings.SearchableTextIndex;
+import com.google.idea.common.settings.SearchableTextProvider;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Generates a {@link SearchableTextIndex} at build time.
+ *
+ * <p>Usage: {@code SearchableTextIndexer <output file> <provider class>...}, where each provider
+ * class implements {@link SearchableTextProvider}.
+ */
+public final class SearchableTextIndexer {
+
+  private SearchableTextIndexer() {}
+
+  public static void main(String[] args) throws IOException, ReflectiveOperationException {
+    if (args.length < 1) {
+      System.err.println("Usage: SearchableTextIndexer <output file> <provider class>...");
+      System.exit(1);
+    }
+    ImmutableList.Builder<SearchableTextProvider> providers = ImmutableList.builder();
+    for (String className : Arrays.asList(args).subList(1, args.length)) {
+      providers.add(createProvider(className));
+    }
+    try (Writer out = Files.newBufferedWriter(Path.of(args[0]), StandardCharsets.UTF_8)) {
+      SearchableTextIndex.write(providers.build(), out);
+    }
+  }
+
+  private static SearchableTextProvider createProvider(String className)
+      throws ReflectiveOperationException {
+    Class<?> klass = Class.forName(className);
+    if (!SearchableTextProvider.class.isAssignableFrom(klass)) {
+      throw new IllegalArgumentException(
+          className + " does not implement " + SearchableTextProvider.class.getName());
+    }
+    return (SearchableTextProvider) klass.getDeclaredConstructor().newInstance();
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2020 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.ui.properties;
+
+import static com.google.idea.common.ui.properties.ListenerArrays.append;
+import static com.google.idea.common.ui.properties.ListenerArrays.remove;
+
+/**
+ * A modifiable {@code boolean} property, avoiding boxing for primitive access and listeners.
+ *
+ * <p>Use {@link #get()}, {@link #set} and {@link BooleanChangeListener}s on hot paths; notifying
+ * them doesn't allocate. The {@link ObservableValue} methods remain available for code working with
+ * any observable value, and only box if boxed listeners are subscribed. The value is never unset.
+ * Listener modifications, nested updates, {@linkplain Property#batch batches} and {@link
+ * PropertyInstrumentation} behave as for {@link Property}.
+ */
+public class BooleanProperty extends PrimitiveProperty<Boolean> {
+
+  private static final BooleanChangeListener[] NO_BOOLEAN_BooleanS = {};
+
+  private boolean value;
+  // The value the listeners were last notified about.
+  private boolean notifiedValue;
+
+  // Replaced on each modification, see ListenerArrays.
+  private BooleanChangeListener[] booleanListeners = NO_BOOLEAN_BooleanS;
+
+  public BooleanProperty() {
+    this(false);
+  }
+
+  public BooleanProperty(boolean value) {
+    this.value = value;
+    this.notifiedValue = value;
+  }
+
+  /** Returns the current value. */
+  public boolean get() {
+    return value;
+  }
+
+  /**
+   * Updates the value of this {@code BooleanProperty}.
+   *
+   * <p>Listeners subscribed to this {@code BooleanProperty} will be notified about the change.
+   *
+   * @param value the new value
+   */
+  public void set(boolean value) {
+    this.value = value;
+    updated();
+  }
+
+  /** Subscribes a {@link BooleanChangeListener}, see {@link #addListener(ChangeListener)}. */
+  public void addBooleanListener(BooleanChangeListener listener) {
+    booleanListeners = append(booleanListeners, listener);
+  }
+
+  /** Unsubscribes a {@link BooleanChangeListener}, see {@link #removeListener(ChangeListener)}. */
+  public void removeBooleanListener(BooleanChangeListener listener) {
+    booleanListeners = remove(booleanListeners, listener);
+  }
+
+  /** Returns the boxed value, which is never {@code null}. Prefer {@link #get()}. */
+  @Override
+  public Boolean getValue() {
+    return value;
+  }
+
+  @Override
+  boolean isChanged() {
+    return value != notifiedValue;
+  }
+
+  @Override
+  void notifyValueListeners(boolean instrumented) {
+    boolean oldValue = notifiedValue;
+    boolean newValue = value;
+    notifiedValue = newValue;
+    if (oldValue == newValue) {
+      return;
+    }
+    BooleanChangeListener[] listeners = booleanListeners;
+    for (int i = 0; i < listeners.length; i++) {
+      long start = instrumented ? System.nanoTime() : 0;
+      listeners[i].changed(this, oldValue, newValue);
+      if (instrumented) {
+        PropertyInstrumentation.record(this, listeners[i], start);
+      }
+    }
+    if (hasChangeListeners()) {
+      triggerChangeListeners(oldValue, newValue, instrumented);
+    }
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.ui.properties;
+
+import static com.google.idea.common.ui.properties.ListenerArrays.append;
+import static com.google.idea.common.ui.properties.ListenerArrays.remove;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+
+/**
+ * A thread-safe variant of {@link Property}, whose listeners are notified on the EDT.
+ *
+ * <p>{@link #setValue} may be called from any thread, and {@link #getValue()} always returns the
+ * latest value. Updates are coalesced: at most one notification is dispatched to the EDT per frame,
+ * and it only delivers the newest value at that point. Intermediate values may therefore never be
+ * observed by listeners, and a {@link ChangeListener} receives the last delivered value as old
+ * value.
+ *
+ * <p>Notifications are dispatched in the {@link ModalityState} given on creation, by default the
+ * one the property is created in. They are therefore held back while a modal dialog opened later
+ * is showing, like other {@code invokeLater} calls.
+ *
+ * @param <T> the type of the contained value
+ */
+public final class ConcurrentProperty<T> implements ObservableValue<T> {
+
+  // The minimum time between two notifications.
+  private static final Duration FRAME = Duration.ofMillis(16);
+
+  private final AtomicReference<T> latestValue;
+  private final AtomicBoolean dispatchScheduled = new AtomicBoolean(false);
+  private final Executor edtExecutor;
+  private final long frameNanos;
+  private volatile long lastDispatchNanos;
+
+  // Replaced on each modification, see ListenerArrays.
+  private volatile InvalidationListener<? super T>[] invalidationListeners =
+      ListenerArrays.noInvalidationListeners();
+  private volatile ChangeListener<? super T>[] changeListeners =
+      ListenerArrays.noChangeListeners();
+
+  // The value listeners were last notified about. Only accessed on the EDT.
+  @Nullable private T deliveredValue;
+
+  public ConcurrentProperty() {
+    this(null);
+  }
+
+  public ConcurrentProperty(@Nullable T value) {
+    this(value, ModalityState.defaultModalityState());
+  }
+
+  /**
+   * Creates a property whose listeners are notified in the given modality state, e.g. that of the
+   * dialog showing the value.
+   */
+  public ConcurrentProperty(@Nullable T value, ModalityState modalityState) {
+    this(value, runnable -> invokeLaterOnEdt(runnable, modalityState), FRAME);
+  }
+
+  @VisibleForTesting
+  ConcurrentProperty(@Nullable T value, Executor edtExecutor, Duration frame) {
+    this.latestValue = new AtomicReference<>(value);
+    this.deliveredValue = value;
+    this.edtExecutor = edtExecutor;
+    this.frameNanos = frame.toNanos();
+    this.lastDispatchNanos = System.nanoTime() - frameNanos;
+  }
+
+  private static void invokeLaterOnEdt(Runnable runnable, ModalityState modalityState) {
+    ApplicationManager.getApplication().invokeLater(runnable, modalityState);
+  }
+
+  @Override
+  public synchronized void addListener(InvalidationListener<? super T> listener) {
+    invalidationListeners = append(invalidationListeners, listener);
+  }
+
+  @Override
+  public synchronized void addListener(ChangeListener<? super T> listener) {
+    changeListeners = append(changeListeners, listener);
+  }
+
+  @Override
+  public synchronized void removeListener(InvalidationListener<? super T> listener) {
+    invalidationListeners = remove(invalidationListeners, listener);
+  }
+
+  @Override
+  public synchronized void removeListener(ChangeListener<? super T> listener) {
+    changeListeners = remove(changeListeners, listener);
+  }
+
+  /** Returns the latest value, which listeners may not have been notified about yet. */
+  @Override
+  @Nullable
+  public T getValue() {
+    return latestValue.get();
+  }
+
+  /**
+   * Updates the value of this {@code ConcurrentProperty}. Use {@code null} to unset the value.
+   *
+   * <p>May be called from any thread. Listeners will be notified on the EDT, unless a newer value
+   * replaces this one before the notification is dispatched.
+   *
+   * @param value the new value
+   */
+  public void setValue(@Nullable T value) {
+    latestValue.set(value);
+    if (dispatchScheduled.compareAndSet(false, true)) {
+      scheduleDispatch();
+    }
+  }
+
+  private void scheduleDispatch() {
+    long delay = lastDispatchNanos + frameNanos - System.nanoTime();
+    if (delay > 0) {
+      AppExecutorUtil.getAppScheduledExecutorService()
+          .schedule(() -> edtExecutor.execute(this::dispatch), delay, TimeUnit.NANOSECONDS);
+    } else {
+      edtExecutor.execute(this::dispatch);
+    }
+  }
+
+  private void dispatch() {
+    lastDispatchNanos = System.nanoTime();
+    // updates from now on need another dispatch
+    dispatchScheduled.set(false);
+    T oldValue = deliveredValue;
+    T newValue = latestValue.get();
+    deliveredValue = newValue;
+
+    InvalidationListener<? super T>[] invalidation = invalidationListeners;
+    for (int i = 0; i < invalidation.length; i++) {
+      invalidation[i].invalidated(this);
+    }
+
+    ChangeListener<? super T>[] change = changeListeners;
+    if (change.length > 0 && !Objects.equals(oldValue, newValue)) {
+      for (int i = 0; i < change.length; i++) {
+        change[i].changed(this, oldValue, newValue);
+      }
+    }
+  }
+}
@@ -0,0 +1,354 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.ui.properties;
+
+import static com.google.idea.common.ui.properties.ListenerArrays.append;
+import static com.google.idea.common.ui.properties.ListenerArrays.remove;
+
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * An {@link ObservableValue} derived from other observable values. See {@link
+ * ObservableValue#map}, {@link ObservableValue#flatMap} and {@link ObservableValue#combine}.
+ *
+ * <p>Derived values are lazy and memoized. They only subscribe to their inputs while they have
+ * listeners of their own. While subscribed, an invalidation of an input invalidates the value, and
+ * it is recomputed on the next read. Without listeners, the value is recomputed on a read if an
+ * input holds a different instance than at the last computation, or if a {@link Property} input
+ * was updated since, even with the same instance. Other inputs are only compared by identity, so
+ * mutating their value in place is not noticed.
+ *
+ * <p>{@link InvalidationListener InvalidationListeners} are notified when the value becomes
+ * invalid, so only once until the value is read again. {@link ChangeListener ChangeListeners}
+ * require the new value, so their presence makes the value recompute on each invalidation.
+ *
+ * @param <T> the type of the derived value
+ */
+abstract class DerivedValue<T> implements ObservableValue<T> {
+
+  private InvalidationListener<? super T>[] invalidationListeners =
+      ListenerArrays.noInvalidationListeners();
+  private ChangeListener<? super T>[] changeListeners = ListenerArrays.noChangeListeners();
+
+  /** Subscribed to all inputs while this value has listeners. */
+  final InvalidationListener<Object> inputListener = observable -> inputInvalidated();
+
+  @Nullable private T value;
+  private boolean computed = false;
+  // Whether the value is up to date. Only maintained while the inputs are observed.
+  private boolean valid = false;
+
+  /** Computes the value, and records the input values it's based on. */
+  @Nullable
+  abstract T compute();
+
+  /**
+   * Returns whether the inputs still hold the same instances as at the last computation, and
+   * weren't updated since.
+   */
+  abstract boolean inputsUnchanged();
+
+  /**
+   * Returns the number of updates of {@code input} if it counts them, so that updates with the same
+   * instance are noticed as well.
+   */
+  static long updateCount(@Nullable ObservableValue<?> input) {
+    return input instanceof Property ? ((Property<?>) input).getUpdateCount() : 0;
+  }
+
+  abstract void observeInputs();
+
+  abstract void unobserveInputs();
+
+  static <S, T> DerivedValue<T> map(
+      ObservableValue<S> source, Function<? super S, ? extends T> mapper) {
+    return new MappedValue<>(source, mapper);
+  }
+
+  static <S, T> DerivedValue<T> flatMap(
+      ObservableValue<S> source,
+      Function<? super S, ? extends ObservableValue<? extends T>> mapper) {
+    return new FlatMappedValue<>(source, mapper);
+  }
+
+  static <A, B, T> DerivedValue<T> combine(
+      ObservableValue<A> first,
+      ObservableValue<B> second,
+      BiFunction<? super A, ? super B, ? extends T> combiner) {
+    return new CombinedValue<>(first, second, combiner);
+  }
+
+  @Override
+  @Nullable
+  public final T getValue() {
+    boolean upToDate = isObserved() ? valid : computed && inputsUnchanged();
+    if (!upToDate) {
+      value = compute();
+      computed = true;
+      valid = isObserved();
+    }
+    return value;
+  }
+
+  @Override
+  public final void addListener(InvalidationListener<? super T> listener) {
+    boolean wasObserved = isObserved();
+    invalidationListeners = append(invalidationListeners, listener);
+    if (!wasObserved) {
+      startObserving();
+    }
+  }
+
+  @Override
+  public final void addListener(ChangeListener<? super T> listener) {
+    boolean wasObserved = isObserved();
+    changeListeners = append(changeListeners, listener);
+    if (!wasObserved) {
+      startObserving();
+    }
+  }
+
+  @Override
+  public final void removeListener(InvalidationListener<? super T> listener) {
+    boolean wasObserved = isObserved();
+    invalidationListeners = remove(invalidationListeners, listener);
+    if (wasObserved && !isObserved()) {
+      stopObserving();
+    }
+  }
+
+  @Override
+  public final void removeListener(ChangeListener<? super T> listener) {
+    boolean wasObserved = isObserved();
+    changeListeners = remove(changeListeners, listener);
+    if (wasObserved && !isObserved()) {
+      stopObserving();
+    }
+  }
+
+  private boolean isObserved() {
+    return invalidationListeners.length > 0 || changeListeners.length > 0;
+  }
+
+  private void startObserving() {
+    observeInputs();
+    // compute the value, so that the first invalidation is reported
+    valid = false;
+    getValue();
+  }
+
+  private void stopObserving() {
+    valid = false;
+    unobserveInputs();
+  }
+
+  private void inputInvalidated() {
+    if (!valid) {
+      // already reported, and nobody read the value since
+      return;
+    }
+    valid = false;
+    T oldValue = value;
+
+    InvalidationListener<? super T>[] invalidation = invalidationListeners;
+    for (int i = 0; i < invalidation.length; i++) {
+      invalidation[i].invalidated(this);
+    }
+
+    ChangeListener<? super T>[] change = changeListeners;
+    if (change.length == 0) {
+      return;
+    }
+    T newValue = getValue();
+    if (!Objects.equals(oldValue, newValue)) {
+      for (int i = 0; i < change.length; i++) {
+        change[i].changed(this, oldValue, newValue);
+      }
+    }
+  }
+
+  /** A value derived from a single input. {@code null} is mapped to {@code null}. */
+  private static final class MappedValue<S, T> extends DerivedValue<T> {
+    private final ObservableValue<S> source;
+    private final Function<? super S, ? extends T> mapper;
+
+    @Nullable private S lastSource;
+    private long lastSourceUpdate;
+
+    MappedValue(ObservableValue<S> source, Function<? super S, ? extends T> mapper) {
+      this.source = source;
+      this.mapper = mapper;
+    }
+
+    @Override
+    @Nullable
+    T compute() {
+      lastSourceUpdate = updateCount(source);
+      lastSource = source.getValue();
+      return lastSource != null ? mapper.apply(lastSource) : null;
+    }
+
+    @Override
+    boolean inputsUnchanged() {
+      return source.getValue() == lastSource && updateCount(source) == lastSourceUpdate;
+    }
+
+    @Override
+    void observeInputs() {
+      source.addListener(inputListener);
+    }
+
+    @Override
+    void unobserveInputs() {
+      source.removeListener(inputListener);
+    }
+  }
+
+  /**
+   * A value taken from the {@link ObservableValue} selected by a single input. {@code null} is
+   * mapped to {@code null}.
+   */
+  private static final class FlatMappedValue<S, T> extends DerivedValue<T> {
+    private final ObservableValue<S> source;
+    private final Function<? super S, ? extends ObservableValue<? extends T>> mapper;
+
+    @Nullable private S lastSource;
+    private long lastSourceUpdate;
+    @Nullable private ObservableValue<? extends T> selected;
+    @Nullable private T lastSelectedValue;
+    private long lastSelectedUpdate;
+    private boolean observing = false;
+
+    FlatMappedValue(
+        ObservableValue<S> source,
+        Function<? super S, ? extends ObservableValue<? extends T>> mapper) {
+      this.source = source;
+      this.mapper = mapper;
+    }
+
+    @Override
+    @Nullable
+    T compute() {
+      long sourceUpdate = updateCount(source);
+      S currentSource = source.getValue();
+      if (currentSource != lastSource || sourceUpdate != lastSourceUpdate) {
+        select(currentSource != null ? mapper.apply(currentSource) : null);
+        lastSource = currentSource;
+        lastSourceUpdate = sourceUpdate;
+      }
+      lastSelectedUpdate = updateCount(selected);
+      lastSelectedValue = selected != null ? selected.getValue() : null;
+      return lastSelectedValue;
+    }
+
+    private void select(@Nullable ObservableValue<? extends T> newSelected) {
+      if (newSelected == selected) {
+        return;
+      }
+      if (observing && selected != null) {
+        selected.removeListener(inputListener);
+      }
+      selected = newSelected;
+      if (observing && selected != null) {
+        selected.addListener(inputListener);
+      }
+    }
+
+    @Override
+    boolean inputsUnchanged() {
+      return source.getValue() == lastSource
+          && updateCount(source) == lastSourceUpdate
+          && (selected == null
+              || (selected.getValue() == lastSelectedValue
+                  && updateCount(selected) == lastSelectedUpdate));
+    }
+
+    @Override
+    void observeInputs() {
+      observing = true;
+      source.addListener(inputListener);
+      if (selected != null) {
+        selected.addListener(inputListener);
+      }
+    }
+
+    @Override
+    void unobserveInputs() {
+      observing = false;
+      source.removeListener(inputListener);
+      if (selected != null) {
+        selected.removeListener(inputListener);
+      }
+    }
+  }
+
+  /** A value derived from two inputs. The combiner also receives {@code null} inputs. */
+  private static final class CombinedValue<A, B, T> extends DerivedValue<T> {
+    private final ObservableValue<A> first;
+    private final ObservableValue<B> second;
+    private final BiFunction<? super A, ? super B, ? extends T> combiner;
+
+    @Nullable private A lastFirst;
+    @Nullable private B lastSecond;
+    private long lastFirstUpdate;
+    private long lastSecondUpdate;
+
+    CombinedValue(
+        ObservableValue<A> first,
+        ObservableValue<B> second,
+        BiFunction<? super A, ? super B, ? extends T> combiner) {
+      this.first = first;
+      this.second = second;
+      this.combiner = combiner;
+    }
+
+    @Override
+    @Nullable
+    T compute() {
+      lastFirstUpdate = updateCount(first);
+      lastSecondUpdate = updateCount(second);
+      lastFirst = first.getValue();
+      lastSecond = second.getValue();
+      return combiner.apply(lastFirst, lastSecond);
+    }
+
+    @Override
+    boolean inputsUnchanged() {
+      return first.getValue() == lastFirst
+          && second.getValue() == lastSecond
+          && updateCount(first) == lastFirstUpdate
+          && updateCount(second) == lastSecondUpdate;
+    }
+
+    @Override
+    void observeInputs() {
+      first.addListener(inputListener);
+      second.addListener(inputListener);
+    }
+
+    @Override
+    void unobserveInputs() {
+      first.removeListener(inputListener);
+      second.removeListener(inputListener);
+    }
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.ui.properties;
+
+/**
+ * A listener reacting to changes of an {@link IntProperty}, receiving the values as primitives.
+ * Like a {@link ChangeListener}, it's only triggered if an update sets a different value.
+ *
+ * <p>To start listening, use {@link IntProperty#addIntListener}, to stop, use {@link
+ * IntProperty#removeIntListener}.
+ */
+@FunctionalInterface
+public interface IntChangeListener {
+
+  /**
+   * Indicates that the {@link IntProperty} changed to a new value.
+   *
+   * @param property the tracked {@link IntProperty} after the update
+   * @param oldValue the value of the {@link IntProperty} before the update
+   * @param newValue the value of the {@link IntProperty} after the update
+   */
+  void changed(IntProperty property, int oldValue, int newValue);
+}
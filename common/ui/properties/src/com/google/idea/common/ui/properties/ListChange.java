@@ -0,0 +1,204 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.ui.properties;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * A change of a contiguous range of an {@link ObservableList}.
+ *
+ * <p>Indices refer to the list after this change, and before any later change reported in the same
+ * notification. Applying the changes of a notification in order therefore transforms the previous
+ * state of the list into the current one.
+ *
+ * @param <T> the type of the list elements
+ */
+public final class ListChange<T> {
+
+  /** The kind of a {@link ListChange}. */
+  public enum Kind {
+    /** Elements were inserted at {@code [from, to)}. */
+    ADDED,
+    /** The {@linkplain #getRemoved() removed} elements were removed at {@code from}. */
+    REMOVED,
+    /** The {@linkplain #getRemoved() replaced} elements at {@code [from, to)} were replaced. */
+    REPLACED,
+    /** The elements at {@code [from, to)} were reordered, see {@link #getPermutation}. */
+    PERMUTED
+  }
+
+  private final Kind kind;
+  private final int from;
+  private final int to;
+  private final List<T> removed;
+  private final List<T> added;
+  @Nullable private final int[] permutation;
+
+  private ListChange(
+      Kind kind,
+      int from,
+      int to,
+      List<T> removed,
+      List<T> added,
+      @Nullable int[] permutation) {
+    this.kind = kind;
+    this.from = from;
+    this.to = to;
+    this.removed = removed;
+    this.added = added;
+    this.permutation = permutation;
+  }
+
+  static <T> ListChange<T> added(int from, List<T> added) {
+    return new ListChange<>(
+        Kind.ADDED, from, from + added.size(), Collections.emptyList(), added, null);
+  }
+
+  static <T> ListChange<T> removed(int from, List<T> removed) {
+    return new ListChange<>(Kind.REMOVED, from, from, removed, Collections.emptyList(), null);
+  }
+
+  static <T> ListChange<T> replaced(int from, List<T> replaced, List<T> replacements) {
+    return new ListChange<>(
+        Kind.REPLACED, from, from + replaced.size(), replaced, replacements, null);
+  }
+
+  /**
+   * @param permutation maps each index in {@code [from, to)} minus {@code from} to the new index of
+   *     the element previously at that index
+   */
+  static <T> ListChange<T> permuted(int from, int to, int[] permutation) {
+    return new ListChange<>(
+        Kind.PERMUTED, from, to, Collections.emptyList(), Collections.emptyList(), permutation);
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  /** Returns the first index of the changed range. */
+  public int getFrom() {
+    return from;
+  }
+
+  /** Returns the end of the changed range (exclusive). Equals {@link #getFrom()} for removals. */
+  public int getTo() {
+    return to;
+  }
+
+  /** Returns the removed or replaced elements, or an empty list for other kinds of changes. */
+  public List<T> getRemoved() {
+    return removed;
+  }
+
+  /**
+   * Returns the added or replacing elements, as they were at the time of this change, or an empty
+   * list for other kinds of changes.
+   */
+  public List<T> getAdded() {
+    return added;
+  }
+
+  /**
+   * Returns the index the element previously at {@code oldIndex} was moved to.
+   *
+   * @throws IllegalStateException if this isn't a {@link Kind#PERMUTED} change
+   * @throws IndexOutOfBoundsException if {@code oldIndex} is outside of the changed range
+   */
+  public int getPermutation(int oldIndex) {
+    if (permutation == null) {
+      throw new IllegalStateException("not a permutation: " + this);
+    }
+    checkElementIndex(oldIndex - from, permutation.length);
+    return permutation[oldIndex - from];
+  }
+
+  /**
+   * Returns this change combined with {@code next}, if they are equivalent to a single change, or
+   * null otherwise.
+   */
+  @Nullable
+  ListChange<T> mergeWith(ListChange<T> next) {
+    if (kind != next.kind) {
+      return null;
+    }
+    switch (kind) {
+      case ADDED:
+        if (next.from >= from && next.from <= to) {
+          List<T> merged = new ArrayList<>(added.size() + next.added.size());
+          merged.addAll(added.subList(0, next.from - from));
+          merged.addAll(next.added);
+          merged.addAll(added.subList(next.from - from, added.size()));
+          return added(from, Collections.unmodifiableList(merged));
+        }
+        return null;
+      case REMOVED:
+        if (next.from == from) {
+          return removed(from, concat(removed, next.removed));
+        }
+        if (next.from + next.removed.size() == from) {
+          return removed(next.from, concat(next.removed, removed));
+        }
+        return null;
+      default:
+        return null;
+    }
+  }
+
+  /** Applies this change to {@code target}, which must be in the state before this change. */
+  void applyTo(List<T> target) {
+    switch (kind) {
+      case ADDED:
+        target.addAll(from, added);
+        break;
+      case REMOVED:
+        target.subList(from, from + removed.size()).clear();
+        break;
+      case REPLACED:
+        for (int i = 0; i < added.size(); i++) {
+          target.set(from + i, added.get(i));
+        }
+        break;
+      case PERMUTED:
+        List<T> range = target.subList(from, to);
+        List<T> old = new ArrayList<>(range);
+        for (int i = 0; i < old.size(); i++) {
+          range.set(permutation[i] - from, old.get(i));
+        }
+        break;
+    }
+  }
+
+  private static <T> List<T> concat(List<T> first, List<T> second) {
+    List<T> result = new ArrayList<>(first.size() + second.size());
+    result.addAll(first);
+    result.addAll(second);
+    return Collections.unmodifiableList(result);
+  }
+
+  @Override
+  public String toString() {
+    return kind + "[" + from + ", " + to + ")" + (removed.isEmpty() ? "" : " " + removed);
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.ui.properties;
+
+import java.util.List;
+
+/**
+ * A listener reacting to modifications of an {@link ObservableList}.
+ *
+ * <p>To start listening, use {@link ObservableList#addListener(ListChangeListener)}, to stop, use
+ * {@link ObservableList#removeListener(ListChangeListener)}.
+ *
+ * @param <T> the type of the list elements
+ */
+@FunctionalInterface
+public interface ListChangeListener<T> {
+
+  /**
+   * Indicates that the {@link ObservableList} was modified.
+   *
+   * @param list the {@link ObservableList} after the modification
+   * @param changes the changes, in the order they were made, see {@link ListChange}
+   */
+  void onChanged(ObservableList<T> list, List<ListChange<T>> changes);
+}
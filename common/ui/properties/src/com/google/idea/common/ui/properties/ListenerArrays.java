@@ -0,0 +1,74 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.ui.properties;
+
+import java.util.Arrays;
+
+/**
+ * Helpers for listener arrays which are replaced on each modification instead of being modified in
+ * place. Listeners may therefore be added and removed while an array is being iterated.
+ */
+final class ListenerArrays {
+
+  private static final InvalidationListener<?>[] NO_INVALIDATION_LISTENERS = {};
+  private static final ChangeListener<?>[] NO_CHANGE_LISTENERS = {};
+
+  private ListenerArrays() {}
+
+  // The shared empty arrays contain no elements, so they are valid arrays of any listener type.
+  @SuppressWarnings("unchecked")
+  static <T> InvalidationListener<? super T>[] noInvalidationListeners() {
+    return (InvalidationListener<? super T>[]) NO_INVALIDATION_LISTENERS;
+  }
+
+  @SuppressWarnings("unchecked")
+  static <T> ChangeListener<? super T>[] noChangeListeners() {
+    return (ChangeListener<? super T>[]) NO_CHANGE_LISTENERS;
+  }
+
+  static <L> L[] append(L[] listeners, L listener) {
+    L[] result = Arrays.copyOf(listeners, listeners.length + 1);
+    result[listeners.length] = listener;
+    return result;
+  }
+
+  /**
+   * Removes the first occurrence of the listener, if any. A {@link ListenerSubscription} matches
+   * the listener it wraps, and is unregistered from its parent {@link
+   * com.intellij.openapi.Disposable} when removed.
+   */
+  static <L> L[] remove(L[] listeners, L listener) {
+    for (int i = 0; i < listeners.length; i++) {
+      if (listeners[i].equals(listener) || isSubscriptionFor(listeners[i], listener)) {
+        if (listeners[i] instanceof ListenerSubscription) {
+          ((ListenerSubscription<?>) listeners[i]).removed();
+        }
+        L[] result = Arrays.copyOf(listeners, listeners.length - 1);
+        System.arraycopy(listeners, i + 1, result, i, listeners.length - i - 1);
+        return result;
+      }
+    }
+    return listeners;
+  }
+
+  private static boolean isSubscriptionFor(Object element, Object listener) {
+    return element instanceof ListenerSubscription
+        && ((ListenerSubscription<?>) element).isFor(listener);
+  }
+}
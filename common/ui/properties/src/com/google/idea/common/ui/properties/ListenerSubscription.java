@@ -0,0 +1,155 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.ui.properties;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nullable;
+
+/**
+ * A listener subscribed until a parent {@link Disposable} is disposed, see {@link
+ * ObservableValue#addListener(ChangeListener, Disposable)}.
+ *
+ * <p>The subscription is registered with its parent, and removes itself once the parent is
+ * disposed. If the wrapped listener is removed manually instead, {@link ListenerArrays#remove}
+ * unregisters the subscription from its parent, which would otherwise keep it until disposal.
+ *
+ * @param <L> the type of the wrapped listener
+ */
+abstract class ListenerSubscription<L> implements Disposable {
+
+  final L listener;
+  private final AtomicBoolean removed = new AtomicBoolean();
+
+  private ListenerSubscription(L listener) {
+    this.listener = listener;
+  }
+
+  static <T> void subscribe(
+      ObservableValue<T> observable,
+      InvalidationListener<? super T> listener,
+      Disposable parentDisposable) {
+    InvalidationSubscription<T> subscription = new InvalidationSubscription<>(observable, listener);
+    observable.addListener(subscription);
+    Disposer.register(parentDisposable, subscription);
+  }
+
+  static <T> void subscribe(
+      ObservableValue<T> observable,
+      ChangeListener<? super T> listener,
+      Disposable parentDisposable) {
+    ChangeSubscription<T> subscription = new ChangeSubscription<>(observable, listener);
+    observable.addListener(subscription);
+    Disposer.register(parentDisposable, subscription);
+  }
+
+  static <T> void subscribe(
+      ObservableList<T> list, ListChangeListener<T> listener, Disposable parentDisposable) {
+    ListSubscription<T> subscription = new ListSubscription<>(list, listener);
+    list.addListener(subscription);
+    Disposer.register(parentDisposable, subscription);
+  }
+
+  /** Returns whether this subscription wraps the given listener. */
+  boolean isFor(Object listener) {
+    return this.listener.equals(listener);
+  }
+
+  /** Removes this subscription from its observable. */
+  abstract void unsubscribe();
+
+  @Override
+  public final void dispose() {
+    if (removed.compareAndSet(false, true)) {
+      unsubscribe();
+    }
+  }
+
+  /** Unregisters this subscription from its parent, once it was removed from its observable. */
+  final void removed() {
+    if (removed.compareAndSet(false, true)) {
+      Disposer.dispose(this);
+    }
+  }
+
+  private static final class InvalidationSubscription<T>
+      extends ListenerSubscription<InvalidationListener<? super T>>
+      implements InvalidationListener<T> {
+    private final ObservableValue<T> observable;
+
+    InvalidationSubscription(
+        ObservableValue<T> observable, InvalidationListener<? super T> listener) {
+      super(listener);
+      this.observable = observable;
+    }
+
+    @Override
+    public void invalidated(ObservableValue<? extends T> observable) {
+      listener.invalidated(observable);
+    }
+
+    @Override
+    void unsubscribe() {
+      observable.removeListener(this);
+    }
+  }
+
+  private static final class ChangeSubscription<T>
+      extends ListenerSubscription<ChangeListener<? super T>> implements ChangeListener<T> {
+    private final ObservableValue<T> observable;
+
+    ChangeSubscription(ObservableValue<T> observable, ChangeListener<? super T> listener) {
+      super(listener);
+      this.observable = observable;
+    }
+
+    @Override
+    public void changed(
+        ObservableValue<? extends T> observable, @Nullable T oldValue, @Nullable T newValue) {
+      listener.changed(observable, oldValue, newValue);
+    }
+
+    @Override
+    void unsubscribe() {
+      observable.removeListener(this);
+    }
+  }
+
+  private static final class ListSubscription<T>
+      extends ListenerSubscription<ListChangeListener<T>> implements ListChangeListener<T> {
+    private final ObservableList<T> list;
+
+    ListSubscription(ObservableList<T> list, ListChangeListener<T> listener) {
+      super(listener);
+      this.list = list;
+    }
+
+    @Override
+    public void onChanged(ObservableList<T> list, List<ListChange<T>> changes) {
+      listener.onChanged(list, changes);
+    }
+
+    @Override
+    void unsubscribe() {
+      list.removeListener(this);
+    }
+  }
+}
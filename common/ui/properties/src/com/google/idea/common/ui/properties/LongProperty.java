@@ -0,0 +1,111 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2020 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.ui.properties;
+
+import static com.google.idea.common.ui.properties.ListenerArrays.append;
+import static com.google.idea.common.ui.properties.ListenerArrays.remove;
+
+/**
+ * A modifiable {@code long} property, avoiding boxing for primitive access and listeners.
+ *
+ * <p>Use {@link #get()}, {@link #set} and {@link LongChangeListener}s on hot paths; notifying
+ * them doesn't allocate. The {@link ObservableValue} methods remain available for code working with
+ * any observable value, and only box if boxed listeners are subscribed. The value is never unset.
+ * Listener modifications, nested updates, {@linkplain Property#batch batches} and {@link
+ * PropertyInstrumentation} behave as for {@link Property}.
+ */
+public class LongProperty extends PrimitiveProperty<Long> {
+
+  private static final LongChangeListener[] NO_LONG_LongS = {};
+
+  private long value;
+  // The value the listeners were last notified about.
+  private long notifiedValue;
+
+  // Replaced on each modification, see ListenerArrays.
+  private LongChangeListener[] longListeners = NO_LONG_LongS;
+
+  public LongProperty() {
+    this(0);
+  }
+
+  public LongProperty(long value) {
+    this.value = value;
+    this.notifiedValue = value;
+  }
+
+  /** Returns the current value. */
+  public long get() {
+    return value;
+  }
+
+  /**
+   * Updates the value of this {@code LongProperty}.
+   *
+   * <p>Listeners subscribed to this {@code LongProperty} will be notified about the change.
+   *
+   * @param value the new value
+   */
+  public void set(long value) {
+    this.value = value;
+    updated();
+  }
+
+  /** Subscribes a {@link LongChangeListener}, see {@link #addListener(ChangeListener)}. */
+  public void addLongListener(LongChangeListener listener) {
+    longListeners = append(longListeners, listener);
+  }
+
+  /** Unsubscribes a {@link LongChangeListener}, see {@link #removeListener(ChangeListener)}. */
+  public void removeLongListener(LongChangeListener listener) {
+    longListeners = remove(longListeners, listener);
+  }
+
+  /** Returns the boxed value, which is never {@code null}. Prefer {@link #get()}. */
+  @Override
+  public Long getValue() {
+    return value;
+  }
+
+  @Override
+  boolean isChanged() {
+    return value != notifiedValue;
+  }
+
+  @Override
+  void notifyValueListeners(boolean instrumented) {
+    long oldValue = notifiedValue;
+    long newValue = value;
+    notifiedValue = newValue;
+    if (oldValue == newValue) {
+      return;
+    }
+    LongChangeListener[] listeners = longListeners;
+    for (int i = 0; i < listeners.length; i++) {
+      long start = instrumented ? System.nanoTime() : 0;
+      listeners[i].changed(this, oldValue, newValue);
+      if (instrumented) {
+        PropertyInstrumentation.record(this, listeners[i], start);
+      }
+    }
+    if (hasChangeListeners()) {
+      triggerChangeListeners(oldValue, newValue, instrumented);
+    }
+  }
+}
@@ -0,0 +1,262 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.ui.properties;
+
+import com.intellij.openapi.Disposable;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.RandomAccess;
+import javax.annotation.Nullable;
+
+/**
+ * A list whose modifications can be observed through {@link ListChangeListener
+ * ListChangeListeners}, as ranges of added, removed, replaced or permuted elements.
+ *
+ * <p>Each modification notifies the listeners immediately, unless it's part of a {@link
+ * #batch(Runnable)}, in which case the changes are reported together when the batch completes.
+ * Adjacent additions and removals are merged into a single {@link ListChange}. Listeners may be
+ * added and removed while being notified, see {@link Property}. If a listener modifies the list,
+ * the notification about that change is deferred until all listeners were notified about the
+ * current one, so every listener observes the changes in order.
+ *
+ * <p>Use {@link ObservableListModel} and {@link ObservableTableModel} to show an {@code
+ * ObservableList} in Swing components, which are then updated incrementally.
+ *
+ * @param <T> the type of the list elements
+ */
+public class ObservableList<T> extends AbstractList<T> implements RandomAccess {
+
+  @SuppressWarnings("rawtypes")
+  private static final ListChangeListener[] NO_LISTENERS = {};
+
+  private final List<T> elements;
+
+  // Replaced on each modification, see ListenerArrays.
+  @SuppressWarnings("unchecked")
+  private ListChangeListener<T>[] listeners = NO_LISTENERS;
+
+  // The changes of the running batch, or null if none is running.
+  @Nullable private List<ListChange<T>> batchedChanges;
+
+  // Notifications of changes made by listeners while being notified, or null if no notification
+  // is running. They are delivered once all listeners were notified about the current one.
+  @Nullable private Queue<List<ListChange<T>>> pendingNotifications;
+
+  public ObservableList() {
+    this(Collections.emptyList());
+  }
+
+  public ObservableList(Collection<? extends T> elements) {
+    this.elements = new ArrayList<>(elements);
+  }
+
+  /** Subscribes a {@link ListChangeListener}, see {@link ObservableValue#addListener}. */
+  public void addListener(ListChangeListener<T> listener) {
+    listeners = ListenerArrays.append(listeners, listener);
+  }
+
+  /**
+   * Subscribes a {@link ListChangeListener} until {@code parentDisposable} is disposed, see {@link
+   * ObservableValue#addListener(ChangeListener, Disposable)}.
+   */
+  public void addListener(ListChangeListener<T> listener, Disposable parentDisposable) {
+    ListenerSubscription.subscribe(this, listener, parentDisposable);
+  }
+
+  /** Unsubscribes a {@link ListChangeListener}, see {@link ObservableValue#removeListener}. */
+  public void removeListener(ListChangeListener<T> listener) {
+    listeners = ListenerArrays.remove(listeners, listener);
+  }
+
+  /**
+   * Runs {@code modifications}, reporting all changes made by it to the listeners in a single
+   * notification when it completes. Nested batches are part of the outermost one.
+   */
+  public void batch(Runnable modifications) {
+    if (batchedChanges != null) {
+      modifications.run();
+      return;
+    }
+    List<ListChange<T>> changes = new ArrayList<>();
+    batchedChanges = changes;
+    try {
+      modifications.run();
+    } finally {
+      batchedChanges = null;
+      if (!changes.isEmpty()) {
+        notifyListeners(Collections.unmodifiableList(changes));
+      }
+    }
+  }
+
+  @Override
+  public T get(int index) {
+    return elements.get(index);
+  }
+
+  @Override
+  public int size() {
+    return elements.size();
+  }
+
+  @Override
+  public T set(int index, T element) {
+    T oldElement = elements.set(index, element);
+    changed(
+        ListChange.replaced(
+            index, Collections.singletonList(oldElement), Collections.singletonList(element)));
+    return oldElement;
+  }
+
+  @Override
+  public void add(int index, T element) {
+    elements.add(index, element);
+    modCount++;
+    changed(ListChange.added(index, Collections.singletonList(element)));
+  }
+
+  @Override
+  public boolean addAll(Collection<? extends T> newElements) {
+    return addAll(size(), newElements);
+  }
+
+  @Override
+  public boolean addAll(int index, Collection<? extends T> newElements) {
+    if (newElements.isEmpty()) {
+      return false;
+    }
+    List<T> added = Collections.unmodifiableList(new ArrayList<>(newElements));
+    elements.addAll(index, added);
+    modCount++;
+    changed(ListChange.added(index, added));
+    return true;
+  }
+
+  @Override
+  public T remove(int index) {
+    T oldElement = elements.remove(index);
+    modCount++;
+    changed(ListChange.removed(index, Collections.singletonList(oldElement)));
+    return oldElement;
+  }
+
+  @Override
+  protected void removeRange(int fromIndex, int toIndex) {
+    if (fromIndex == toIndex) {
+      return;
+    }
+    List<T> range = elements.subList(fromIndex, toIndex);
+    List<T> removed = Collections.unmodifiableList(new ArrayList<>(range));
+    range.clear();
+    modCount++;
+    changed(ListChange.removed(fromIndex, removed));
+  }
+
+  @Override
+  public void clear() {
+    removeRange(0, size());
+  }
+
+  /** Replaces all elements, notifying the listeners once. */
+  public void setAll(Collection<? extends T> newElements) {
+    batch(
+        () -> {
+          clear();
+          addAll(newElements);
+        });
+  }
+
+  /** Sorts the list, reporting the reordering as a {@link ListChange.Kind#PERMUTED} change. */
+  @Override
+  public void sort(@Nullable Comparator<? super T> comparator) {
+    int size = elements.size();
+    if (size < 2) {
+      return;
+    }
+    List<Integer> order = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      order.add(i);
+    }
+    // stable, like List.sort
+    Comparator<? super T> elementComparator = comparator != null ? comparator : naturalOrder();
+    order.sort((a, b) -> elementComparator.compare(elements.get(a), elements.get(b)));
+
+    List<T> sorted = new ArrayList<>(size);
+    int[] permutation = new int[size];
+    boolean moved = false;
+    for (int newIndex = 0; newIndex < size; newIndex++) {
+      int oldIndex = order.get(newIndex);
+      sorted.add(elements.get(oldIndex));
+      permutation[oldIndex] = newIndex;
+      moved |= oldIndex != newIndex;
+    }
+    if (!moved) {
+      return;
+    }
+    for (int i = 0; i < size; i++) {
+      elements.set(i, sorted.get(i));
+    }
+    modCount++;
+    changed(ListChange.permuted(0, size, permutation));
+  }
+
+  // Like List.sort(null), which requires Comparable elements.
+  @SuppressWarnings("unchecked")
+  private static <T> Comparator<T> naturalOrder() {
+    return (a, b) -> ((Comparable<Object>) a).compareTo(b);
+  }
+
+  private void changed(ListChange<T> change) {
+    if (batchedChanges == null) {
+      notifyListeners(Collections.singletonList(change));
+      return;
+    }
+    int last = batchedChanges.size() - 1;
+    ListChange<T> merged = last >= 0 ? batchedChanges.get(last).mergeWith(change) : null;
+    if (merged != null) {
+      batchedChanges.set(last, merged);
+    } else {
+      batchedChanges.add(change);
+    }
+  }
+
+  private void notifyListeners(List<ListChange<T>> changes) {
+    if (pendingNotifications != null) {
+      pendingNotifications.add(changes);
+      return;
+    }
+    pendingNotifications = new ArrayDeque<>();
+    try {
+      for (List<ListChange<T>> next = changes; next != null; next = pendingNotifications.poll()) {
+        ListChangeListener<T>[] listeners = this.listeners;
+        for (int i = 0; i < listeners.length; i++) {
+          listeners[i].onChanged(this, next);
+        }
+      }
+    } finally {
+      pendingNotifications = null;
+    }
+  }
+}
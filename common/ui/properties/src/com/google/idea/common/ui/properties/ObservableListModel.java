@@ -0,0 +1,75 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.ui.properties;
+
+import com.intellij.openapi.Disposable;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.AbstractListModel;
+
+/**
+ * A Swing {@link javax.swing.ListModel} showing an {@link ObservableList}. Modifications of the
+ * list are forwarded as interval events, so views only update the affected rows.
+ *
+ * <p>Each {@link ListChange} of a batch is forwarded as its own event. The model shows the state of
+ * the list after the forwarded change while the event is being delivered, so it stays consistent
+ * with the event even if the list was modified further.
+ *
+ * @param <T> the type of the list elements
+ */
+public final class ObservableListModel<T> extends AbstractListModel<T> {
+
+  // The list elements as of the last forwarded change.
+  private final List<T> elements;
+
+  /** Creates a model which follows {@code list} until {@code parentDisposable} is disposed. */
+  public ObservableListModel(ObservableList<T> list, Disposable parentDisposable) {
+    this.elements = new ArrayList<>(list);
+    list.addListener((observable, changes) -> forward(changes), parentDisposable);
+  }
+
+  @Override
+  public int getSize() {
+    return elements.size();
+  }
+
+  @Override
+  public T getElementAt(int index) {
+    return elements.get(index);
+  }
+
+  private void forward(List<ListChange<T>> changes) {
+    for (ListChange<T> change : changes) {
+      change.applyTo(elements);
+      switch (change.getKind()) {
+        case ADDED:
+          fireIntervalAdded(this, change.getFrom(), change.getTo() - 1);
+          break;
+        case REMOVED:
+          fireIntervalRemoved(
+              this, change.getFrom(), change.getFrom() + change.getRemoved().size() - 1);
+          break;
+        case REPLACED:
+        case PERMUTED:
+          fireContentsChanged(this, change.getFrom(), change.getTo() - 1);
+          break;
+      }
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.ui.properties;
+
+import com.google.common.collect.ImmutableList;
+import com.intellij.openapi.Disposable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * A Swing {@link javax.swing.table.TableModel} showing an {@link ObservableList}, one row per
+ * element. Modifications of the list are forwarded as row events, so tables only update the
+ * affected rows.
+ *
+ * <p>Each {@link ListChange} of a batch is forwarded as its own event, see {@link
+ * ObservableListModel}.
+ *
+ * @param <T> the type of the list elements
+ */
+public final class ObservableTableModel<T> extends AbstractTableModel {
+
+  /** A column of an {@link ObservableTableModel}. */
+  public static final class Column<T> {
+    private final String name;
+    private final Class<?> type;
+    private final Function<? super T, ?> valueFunction;
+
+    /**
+     * @param name the column name
+     * @param type the common type of the values in this column
+     * @param valueFunction computes the value of this column for an element
+     */
+    public Column(String name, Class<?> type, Function<? super T, ?> valueFunction) {
+      this.name = name;
+      this.type = type;
+      this.valueFunction = valueFunction;
+    }
+  }
+
+  // The list elements as of the last forwarded change.
+  private final List<T> elements;
+  private final ImmutableList<Column<T>> columns;
+
+  /** Creates a model which follows {@code list} until {@code parentDisposable} is disposed. */
+  public ObservableTableModel(
+      ObservableList<T> list, List<Column<T>> columns, Disposable parentDisposable) {
+    this.elements = new ArrayList<>(list);
+    this.columns = ImmutableList.copyOf(columns);
+    list.addListener((observable, changes) -> forward(changes), parentDisposable);
+  }
+
+  /** Returns the element shown in the given row. */
+  public T getElementAt(int rowIndex) {
+    return elements.get(rowIndex);
+  }
+
+  @Override
+  public int getRowCount() {
+    return elements.size();
+  }
+
+  @Override
+  public int getColumnCount() {
+    return columns.size();
+  }
+
+  @Override
+  public String getColumnName(int columnIndex) {
+    return columns.get(columnIndex).name;
+  }
+
+  @Override
+  public Class<?> getColumnClass(int columnIndex) {
+    return columns.get(columnIndex).type;
+  }
+
+  @Override
+  public Object getValueAt(int rowIndex, int columnIndex) {
+    return columns.get(columnIndex).valueFunction.apply(elements.get(rowIndex));
+  }
+
+  private void forward(List<ListChange<T>> changes) {
+    for (ListChange<T> change : changes) {
+      change.applyTo(elements);
+      switch (change.getKind()) {
+        case ADDED:
+          fireTableRowsInserted(change.getFrom(), change.getTo() - 1);
+          break;
+        case REMOVED:
+          fireTableRowsDeleted(
+              change.getFrom(), change.getFrom() + change.getRemoved().size() - 1);
+          break;
+        case REPLACED:
+        case PERMUTED:
+          fireTableRowsUpdated(change.getFrom(), change.getTo() - 1);
+          break;
+      }
+    }
+  }
+}
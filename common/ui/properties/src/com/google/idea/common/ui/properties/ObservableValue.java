@@ -18,6 +18,9 @@
  */
 package com.google.idea.common.ui.properties;
 
+import com.intellij.openapi.Disposable;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import javax.annotation.Nullable;
 
 /**
@@ -34,7 +37,9 @@ public interface ObservableValue<T> {
    *
    * <p>The {@code ObservableValue} keeps a strong reference to this listener (and anything
    * referenced by it). Hence, don't forget to use {@link #removeListener(InvalidationListener)} to
-   * allow GC to kick in when the listener is not needed anymore.
+   * allow GC to kick in when the listener is not needed anymore, or use {@link
+   * #addListener(InvalidationListener, Disposable)} or {@link
+   * #addWeakListener(InvalidationListener)} instead.
    *
    * <p>The same listener instance can be attached to multiple {@code ObservableValue}s.
    *
@@ -54,7 +59,8 @@ public interface ObservableValue<T> {
    *
    * <p>The {@code ObservableValue} keeps a strong reference to this listener (and anything
    * referenced by it). Hence, don't forget to use {@link #removeListener(ChangeListener)} to allow
-   * GC to kick in when the listener is not needed anymore.
+   * GC to kick in when the listener is not needed anymore, or use {@link
+   * #addListener(ChangeListener, Disposable)} or {@link #addWeakListener(ChangeListener)} instead.
    *
    * <p>The same listener instance can be attached to multiple {@code ObservableValue}s.
    *
@@ -88,10 +94,114 @@ public interface ObservableValue<T> {
    */
   void removeListener(ChangeListener<? super T> listener);
 
+  /**
+   * Subscribes an {@link InvalidationListener} until {@code parentDisposable} is disposed, at which
+   * point the listener is removed automatically. Removing the listener earlier with {@link
+   * #removeListener(InvalidationListener)} also releases its registration with {@code
+   * parentDisposable}.
+   *
+   * @param listener the listener which should be notified on updates
+   * @param parentDisposable the {@link Disposable} limiting the lifetime of the subscription
+   */
+  default void addListener(InvalidationListener<? super T> listener, Disposable parentDisposable) {
+    ListenerSubscription.subscribe(this, listener, parentDisposable);
+  }
+
+  /**
+   * Subscribes a {@link ChangeListener} until {@code parentDisposable} is disposed, at which point
+   * the listener is removed automatically. Removing the listener earlier with {@link
+   * #removeListener(ChangeListener)} also releases its registration with {@code parentDisposable}.
+   *
+   * @param listener the listener which should be notified on updates
+   * @param parentDisposable the {@link Disposable} limiting the lifetime of the subscription
+   */
+  default void addListener(ChangeListener<? super T> listener, Disposable parentDisposable) {
+    ListenerSubscription.subscribe(this, listener, parentDisposable);
+  }
+
+  /**
+   * Subscribes an {@link InvalidationListener} without keeping a strong reference to it.
+   *
+   * <p>The listener is notified as long as something else references it, e.g. the view owning it.
+   * Once it was garbage collected, its subscription is removed on the next update.
+   *
+   * <p><strong>Warning:</strong> a lambda or method reference created for the call, e.g. {@code
+   * addWeakListener(this::update)}, is referenced by nothing but the weak subscription. It can be
+   * garbage collected almost immediately, and then never be notified. Keep such a listener in a
+   * field of its owner. A weak subscription can't be removed with {@link
+   * #removeListener(InvalidationListener)}; subscribe a {@link WeakInvalidationListener} instead if
+   * that's needed.
+   *
+   * @param listener the listener which should be notified on updates
+   */
+  default void addWeakListener(InvalidationListener<? super T> listener) {
+    addListener(new WeakInvalidationListener<>(listener));
+  }
+
+  /**
+   * Subscribes a {@link ChangeListener} without keeping a strong reference to it.
+   *
+   * <p>The listener is notified as long as something else references it, e.g. the view owning it.
+   * Once it was garbage collected, its subscription is removed on the next update.
+   *
+   * <p><strong>Warning:</strong> a lambda or method reference created for the call, e.g. {@code
+   * addWeakListener(this::update)}, is referenced by nothing but the weak subscription. It can be
+   * garbage collected almost immediately, and then never be notified. Keep such a listener in a
+   * field of its owner. A weak subscription can't be removed with {@link
+   * #removeListener(ChangeListener)}; subscribe a {@link WeakChangeListener} instead if that's
+   * needed.
+   *
+   * @param listener the listener which should be notified on updates
+   */
+  default void addWeakListener(ChangeListener<? super T> listener) {
+    addListener(new WeakChangeListener<>(listener));
+  }
+
   /**
    * Returns the value which is currently wrapped by this {@code ObservableValue}. The returned
    * value is {@code null} if the value is unset.
    */
   @Nullable
   T getValue();
+
+  /**
+   * Returns an {@code ObservableValue} holding the result of applying {@code mapper} to the value
+   * of this {@code ObservableValue}, or {@code null} if this value is unset.
+   *
+   * <p>The result is lazy: it is only computed when read after this value was updated, and it only
+   * listens to this {@code ObservableValue} while it has listeners itself.
+   *
+   * @param mapper the function computing the derived value from a non-null value
+   */
+  default <R> ObservableValue<R> map(Function<? super T, ? extends R> mapper) {
+    return DerivedValue.map(this, mapper);
+  }
+
+  /**
+   * Returns an {@code ObservableValue} holding the value of the {@code ObservableValue} which
+   * {@code mapper} selects for the value of this {@code ObservableValue}, or {@code null} if this
+   * value is unset.
+   *
+   * <p>Updates of both this and the selected {@code ObservableValue} are reflected. The result is
+   * lazy, see {@link #map}.
+   *
+   * @param mapper the function selecting an {@code ObservableValue} for a non-null value
+   */
+  default <R> ObservableValue<R> flatMap(
+      Function<? super T, ? extends ObservableValue<? extends R>> mapper) {
+    return DerivedValue.flatMap(this, mapper);
+  }
+
+  /**
+   * Returns an {@code ObservableValue} holding the result of applying {@code combiner} to the
+   * values of {@code first} and {@code second}, which may be {@code null}.
+   *
+   * <p>The result is lazy, see {@link #map}.
+   */
+  static <A, B, R> ObservableValue<R> combine(
+      ObservableValue<A> first,
+      ObservableValue<B> second,
+      BiFunction<? super A, ? super B, ? extends R> combiner) {
+    return DerivedValue.combine(first, second, combiner);
+  }
 }
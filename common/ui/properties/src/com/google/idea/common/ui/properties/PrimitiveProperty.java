@@ -0,0 +1,139 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2020 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.ui.properties;
+
+import static com.google.idea.common.ui.properties.ListenerArrays.append;
+import static com.google.idea.common.ui.properties.ListenerArrays.remove;
+
+/**
+ * The listener handling shared by {@link IntProperty}, {@link LongProperty} and {@link
+ * BooleanProperty}: boxed listeners, nested updates, {@linkplain Property#batch batches} and
+ * {@link PropertyInstrumentation}, all as for {@link Property}.
+ *
+ * <p>Subclasses store the value as a primitive, along with the value their listeners were last
+ * notified about, and notify their primitive listeners from {@link #notifyValueListeners}.
+ *
+ * @param <T> the boxed type of the value
+ */
+abstract class PrimitiveProperty<T> implements ObservableValue<T> {
+
+  // Replaced on each modification, see ListenerArrays.
+  private InvalidationListener<? super T>[] invalidationListeners =
+      ListenerArrays.noInvalidationListeners();
+  private ChangeListener<? super T>[] changeListeners = ListenerArrays.noChangeListeners();
+
+  // Whether listeners are being notified, and whether they were updated again meanwhile.
+  private boolean notifying = false;
+  private boolean updatedWhileNotifying = false;
+
+  @Override
+  public void addListener(InvalidationListener<? super T> listener) {
+    invalidationListeners = append(invalidationListeners, listener);
+  }
+
+  @Override
+  public void addListener(ChangeListener<? super T> listener) {
+    changeListeners = append(changeListeners, listener);
+  }
+
+  @Override
+  public void removeListener(InvalidationListener<? super T> listener) {
+    invalidationListeners = remove(invalidationListeners, listener);
+  }
+
+  @Override
+  public void removeListener(ChangeListener<? super T> listener) {
+    changeListeners = remove(changeListeners, listener);
+  }
+
+  /**
+   * Returns whether the value differs from the value the listeners were last notified about, which
+   * is the value from before a {@linkplain Property#batch batch}.
+   */
+  abstract boolean isChanged();
+
+  /**
+   * Notifies the primitive and boxed change listeners if the value changed since the last
+   * notification, and remembers the current value as notified.
+   */
+  abstract void notifyValueListeners(boolean instrumented);
+
+  /** Notifies the listeners about an update of the value, unless a batch defers it. */
+  final void updated() {
+    if (PropertyBatch.defer(this)) {
+      return;
+    }
+    notifyListeners();
+  }
+
+  /** Notifies the listeners about the updates since a {@linkplain Property#batch batch} started. */
+  final void commitBatch() {
+    if (isChanged()) {
+      notifyListeners();
+    }
+  }
+
+  private void notifyListeners() {
+    if (notifying) {
+      // notified by the outer update once the current notification is complete
+      updatedWhileNotifying = true;
+      return;
+    }
+
+    notifying = true;
+    try {
+      boolean instrumented = PropertyInstrumentation.isEnabled();
+      do {
+        updatedWhileNotifying = false;
+        triggerInvalidationListeners(instrumented);
+        notifyValueListeners(instrumented);
+      } while (updatedWhileNotifying);
+    } finally {
+      notifying = false;
+      updatedWhileNotifying = false;
+    }
+  }
+
+  private void triggerInvalidationListeners(boolean instrumented) {
+    InvalidationListener<? super T>[] listeners = invalidationListeners;
+    for (int i = 0; i < listeners.length; i++) {
+      long start = instrumented ? System.nanoTime() : 0;
+      listeners[i].invalidated(this);
+      if (instrumented) {
+        PropertyInstrumentation.record(this, listeners[i], start);
+      }
+    }
+  }
+
+  /** Returns whether boxed change listeners are subscribed, so callers can skip boxing. */
+  final boolean hasChangeListeners() {
+    return changeListeners.length > 0;
+  }
+
+  final void triggerChangeListeners(T oldValue, T newValue, boolean instrumented) {
+    ChangeListener<? super T>[] listeners = changeListeners;
+    for (int i = 0; i < listeners.length; i++) {
+      long start = instrumented ? System.nanoTime() : 0;
+      listeners[i].changed(this, oldValue, newValue);
+      if (instrumented) {
+        PropertyInstrumentation.record(this, listeners[i], start);
+      }
+    }
+  }
+}
@@ -18,21 +18,43 @@
  */
 package com.google.idea.common.ui.properties;
 
-import java.util.ArrayList;
-import java.util.List;
+import static com.google.idea.common.ui.properties.ListenerArrays.append;
+import static com.google.idea.common.ui.properties.ListenerArrays.remove;
+
 import java.util.Objects;
 import javax.annotation.Nullable;
 
 /**
  * A modifiable property whose changes of value can be observed through listeners.
  *
+ * <p>Listeners are stored in arrays which are replaced on each addition or removal, so listeners
+ * may add or remove listeners while being notified. Such modifications take effect with the next
+ * update.
+ *
+ * <p>If a listener updates the value again, the update takes effect immediately, but its
+ * notification is deferred until all listeners were notified about the current one. Nested updates
+ * are then combined into a single notification, so every listener observes the changes in order
+ * and the newest value last.
+ *
+ * <p>Related updates can be combined with {@link #batch(Runnable)}, deferring all notifications
+ * until the batch completes.
+ *
  * @param <T> the type of the contained value
  */
 public class Property<T> implements ObservableValue<T> {
 
   @Nullable private T value;
-  private final List<InvalidationListener<? super T>> invalidationListeners = new ArrayList<>();
-  private final List<ChangeListener<? super T>> changeListeners = new ArrayList<>();
+  // Incremented on every update, so derived values notice updates with the same instance.
+  private long updateCount = 0;
+
+  // Never modified in place, see the class documentation.
+  private InvalidationListener<? super T>[] invalidationListeners =
+      ListenerArrays.noInvalidationListeners();
+  private ChangeListener<? super T>[] changeListeners = ListenerArrays.noChangeListeners();
+
+  // Whether listeners are being notified, and whether they were updated again meanwhile.
+  private boolean notifying = false;
+  private boolean updatedWhileNotifying = false;
 
   public Property() {
     this(null);
@@ -44,22 +66,22 @@ public class Property<T> implements ObservableValue<T> {
 
   @Override
   public void addListener(InvalidationListener<? super T> listener) {
-    invalidationListeners.add(listener);
+    invalidationListeners = append(invalidationListeners, listener);
   }
 
   @Override
   public void addListener(ChangeListener<? super T> listener) {
-    changeListeners.add(listener);
+    changeListeners = append(changeListeners, listener);
   }
 
   @Override
   public void removeListener(InvalidationListener<? super T> listener) {
-    invalidationListeners.remove(listener);
+    invalidationListeners = remove(invalidationListeners, listener);
   }
 
   @Override
   public void removeListener(ChangeListener<? super T> listener) {
-    changeListeners.remove(listener);
+    changeListeners = remove(changeListeners, listener);
   }
 
   @Override
@@ -78,26 +100,91 @@ public class Property<T> implements ObservableValue<T> {
   public void setValue(@Nullable T value) {
     T oldValue = this.value;
     this.value = value;
+    updateCount++;
+    if (PropertyBatch.defer(this, oldValue)) {
+      return;
+    }
+    notifyListeners(oldValue);
+  }
 
-    triggerInvalidationListeners();
-    triggerChangeListeners(oldValue);
+  /**
+   * Runs {@code updates}, deferring the notifications of all properties updated by it on the
+   * current thread until it completes. This includes {@link IntProperty}, {@link LongProperty} and
+   * {@link BooleanProperty}.
+   *
+   * <p>Each updated property then notifies its listeners at most once, with its value from before
+   * the batch as old value and its final value as new value. Properties whose final value equals
+   * their original value don't notify at all, not even their {@link InvalidationListener
+   * InvalidationListeners}. Nested batches are part of the outermost one.
+   *
+   * @param updates the updates to combine
+   */
+  public static void batch(Runnable updates) {
+    PropertyBatch.run(updates);
   }
 
-  private void triggerInvalidationListeners() {
-    for (InvalidationListener<? super T> invalidationListener : invalidationListeners) {
-      invalidationListener.invalidated(this);
+  /** Returns the number of updates so far, including updates with an equal value. */
+  long getUpdateCount() {
+    return updateCount;
+  }
+
+  /** Notifies the listeners about the updates since the batch started, see {@link #batch}. */
+  void commitBatch(@Nullable T originalValue) {
+    if (!Objects.equals(originalValue, value)) {
+      notifyListeners(originalValue);
+    }
+  }
+
+  private void notifyListeners(@Nullable T oldValue) {
+    if (notifying) {
+      // notified by the outer setValue() call once the current notification is complete
+      updatedWhileNotifying = true;
+      return;
+    }
+
+    notifying = true;
+    try {
+      boolean instrumented = PropertyInstrumentation.isEnabled();
+      do {
+        updatedWhileNotifying = false;
+        T newValue = this.value;
+        triggerInvalidationListeners(instrumented);
+        triggerChangeListeners(oldValue, newValue, instrumented);
+        oldValue = newValue;
+      } while (updatedWhileNotifying);
+    } finally {
+      notifying = false;
+      updatedWhileNotifying = false;
     }
   }
 
-  private void triggerChangeListeners(@Nullable T oldValue) {
+  private void triggerInvalidationListeners(boolean instrumented) {
+    InvalidationListener<? super T>[] listeners = invalidationListeners;
+    for (int i = 0; i < listeners.length; i++) {
+      long start = instrumented ? System.nanoTime() : 0;
+      listeners[i].invalidated(this);
+      if (instrumented) {
+        PropertyInstrumentation.record(this, listeners[i], start);
+      }
+    }
+  }
+
+  private void triggerChangeListeners(
+      @Nullable T oldValue, @Nullable T newValue, boolean instrumented) {
+    ChangeListener<? super T>[] listeners = changeListeners;
     // Avoid potentially expensive equals() computation if no ChangeListener is registered.
-    if (changeListeners.isEmpty()) {
+    if (listeners.length == 0) {
       return;
     }
 
-    if (!Objects.equals(oldValue, this.value)) {
-      for (ChangeListener<? super T> changeListener : changeListeners) {
-        changeListener.changed(this, oldValue, this.value);
+    if (Objects.equals(oldValue, newValue)) {
+      return;
+    }
+    for (int i = 0; i < listeners.length; i++) {
+      long start = instrumented ? System.nanoTime() : 0;
+      listeners[i].changed(this, oldValue, newValue);
+      if (instrumented) {
+        PropertyInstrumentation.record(this, listeners[i], start);
       }
     }
   }
@@ -0,0 +1,117 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.ui.properties;
+
+import com.google.common.base.Throwables;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * The properties updated within a {@link Property#batch} call, and their original values. {@link
+ * PrimitiveProperty PrimitiveProperties} keep track of their original value themselves.
+ */
+final class PropertyBatch {
+
+  private static final ThreadLocal<PropertyBatch> current = new ThreadLocal<>();
+
+  // In order of their first update.
+  private final Map<ObservableValue<?>, Object> originalValues = new LinkedHashMap<>();
+
+  private PropertyBatch() {}
+
+  static void run(Runnable updates) {
+    if (current.get() != null) {
+      // nested batches are part of the outermost one
+      updates.run();
+      return;
+    }
+    PropertyBatch batch = new PropertyBatch();
+    current.set(batch);
+    try {
+      updates.run();
+    } finally {
+      // updates made by listeners are not part of the batch anymore
+      current.remove();
+      batch.commit();
+    }
+  }
+
+  /**
+   * Records the update of a property if a batch is running on the current thread.
+   *
+   * @return whether the notification of the update is deferred
+   */
+  static <T> boolean defer(Property<T> property, @Nullable T oldValue) {
+    PropertyBatch batch = current.get();
+    if (batch == null) {
+      return false;
+    }
+    if (!batch.originalValues.containsKey(property)) {
+      batch.originalValues.put(property, oldValue);
+    }
+    return true;
+  }
+
+  /**
+   * Records the update of a primitive property if a batch is running on the current thread.
+   *
+   * @return whether the notification of the update is deferred
+   */
+  static boolean defer(PrimitiveProperty<?> property) {
+    PropertyBatch batch = current.get();
+    if (batch == null) {
+      return false;
+    }
+    batch.originalValues.putIfAbsent(property, null);
+    return true;
+  }
+
+  /**
+   * Notifies all updated properties, even if a listener throws. The first exception is rethrown
+   * once all properties were notified, with any later ones added as suppressed exceptions.
+   */
+  private void commit() {
+    Throwable failure = null;
+    for (Map.Entry<ObservableValue<?>, Object> entry : originalValues.entrySet()) {
+      try {
+        if (entry.getKey() instanceof PrimitiveProperty) {
+          ((PrimitiveProperty<?>) entry.getKey()).commitBatch();
+        } else {
+          commit((Property<?>) entry.getKey(), entry.getValue());
+        }
+      } catch (RuntimeException | Error e) {
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+    if (failure != null) {
+      Throwables.throwIfUnchecked(failure);
+    }
+  }
+
+  // Original values are recorded for their property, so the types always match.
+  @SuppressWarnings("unchecked")
+  private static <T> void commit(Property<T> property, @Nullable Object originalValue) {
+    property.commitBatch((T) originalValue);
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.ui.properties;
+
+import com.intellij.openapi.diagnostic.Logger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import javax.swing.SwingUtilities;
+
+/**
+ * Opt-in instrumentation of the listener dispatch of {@link Property} and its primitive
+ * counterparts, for finding listeners which freeze the EDT.
+ *
+ * <p>While enabled, invocation counts and cumulative and maximum durations are recorded per
+ * property and per listener class, and listeners taking longer than a threshold on the EDT are
+ * logged. Enable it with {@link #enable} or the system property {@value #ENABLED_PROPERTY}; the
+ * threshold in milliseconds can be set with {@value #THRESHOLD_PROPERTY}. While disabled, it costs
+ * a single volatile read per update.
+ */
+public final class PropertyInstrumentation {
+
+  private static final Logger logger = Logger.getInstance(PropertyInstrumentation.class);
+
+  static final String ENABLED_PROPERTY = "ui.properties.instrumentation";
+  static final String THRESHOLD_PROPERTY = "ui.properties.instrumentation.threshold.ms";
+
+  // Toggled at runtime, and read once per notification.
+  private static volatile boolean enabled = Boolean.getBoolean(ENABLED_PROPERTY);
+
+  private static long thresholdNanos =
+      Duration.ofMillis(Long.getLong(THRESHOLD_PROPERTY, 50)).toNanos();
+
+  // Properties are weakly referenced, so instrumentation doesn't keep them alive.
+  private static final Map<Object, Stats> propertyStats = new WeakHashMap<>();
+  private static final Map<String, Stats> listenerStats = new HashMap<>();
+
+  private PropertyInstrumentation() {}
+
+  /**
+   * Starts recording listener invocations, flagging those which take longer than {@code
+   * slowListenerThreshold} on the EDT.
+   */
+  public static void enable(Duration slowListenerThreshold) {
+    thresholdNanos = slowListenerThreshold.toNanos();
+    enabled = true;
+  }
+
+  /** Stops recording listener invocations. The recorded data is kept until {@link #reset()}. */
+  public static void disable() {
+    enabled = false;
+  }
+
+  /** Returns whether listener invocations are recorded. */
+  static boolean isEnabled() {
+    return enabled;
+  }
+
+  /** Discards all recorded data. */
+  public static synchronized void reset() {
+    propertyStats.clear();
+    listenerStats.clear();
+  }
+
+  /** Records a listener invocation which started at {@code startNanos} and just completed. */
+  static void record(Object property, Object listener, long startNanos) {
+    long nanos = System.nanoTime() - startNanos;
+    boolean slow = nanos > thresholdNanos && SwingUtilities.isEventDispatchThread();
+    String listenerClass = listener.getClass().getName();
+    synchronized (PropertyInstrumentation.class) {
+      propertyStats.computeIfAbsent(property, p -> new Stats(describe(p))).add(nanos, slow);
+      listenerStats.computeIfAbsent(listenerClass, Stats::new).add(nanos, slow);
+    }
+    if (slow) {
+      logger.warn(
+          String.format(
+              Locale.ROOT,
+              "Slow property listener on EDT: %s took %.1f ms notifying about %s",
+              listenerClass,
+              nanos / 1e6,
+              describe(property)));
+    }
+  }
+
+  private static String describe(Object property) {
+    return property.getClass().getSimpleName() + "@" + Integer.toHexString(property.hashCode());
+  }
+
+  /** Returns the recorded data as a table, sorted by cumulative time. */
+  public static synchronized String dump() {
+    StringBuilder table = new StringBuilder();
+    appendTable(table, "Listener class", listenerStats.values());
+    table.append('\n');
+    appendTable(table, "Property", propertyStats.values());
+    return table.toString();
+  }
+
+  private static void appendTable(StringBuilder table, String title, Iterable<Stats> stats) {
+    List<Stats> rows = new ArrayList<>();
+    stats.forEach(rows::add);
+    rows.sort(Comparator.comparingLong((Stats s) -> s.totalNanos).reversed());
+    int width = title.length();
+    for (Stats row : rows) {
+      width = Math.max(width, row.name.length());
+    }
+    String format = "%-" + width + "s %10s %12s %10s %6s%n";
+    table.append(
+        String.format(Locale.ROOT, format, title, "count", "total ms", "max ms", "slow"));
+    for (Stats row : rows) {
+      table.append(
+          String.format(
+              Locale.ROOT,
+              format,
+              row.name,
+              row.count,
+              String.format(Locale.ROOT, "%.3f", row.totalNanos / 1e6),
+              String.format(Locale.ROOT, "%.3f", row.maxNanos / 1e6),
+              row.slowCount));
+    }
+  }
+
+  /** The recorded invocations of a property's listeners, or of a listener class. */
+  private static final class Stats {
+    private final String name;
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+    private long slowCount;
+
+    Stats(String name) {
+      this.name = name;
+    }
+
+    void add(long nanos, boolean slow) {
+      count++;
+      totalNanos += nanos;
+      maxNanos = Math.max(maxNanos, nanos);
+      if (slow) {
+        slowCount++;
+      }
+    }
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.ui.properties;
+
+import java.lang.ref.WeakReference;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link ChangeListener} which forwards to another listener without keeping a strong reference
+ * to it. Once the wrapped listener was garbage collected, this listener removes itself from the
+ * {@link ObservableValue} on the next change.
+ *
+ * @param <T> the type of the tracked {@link ObservableValue}
+ */
+public final class WeakChangeListener<T> implements ChangeListener<T> {
+
+  private final WeakReference<ChangeListener<? super T>> listener;
+
+  public WeakChangeListener(ChangeListener<? super T> listener) {
+    this.listener = new WeakReference<>(listener);
+  }
+
+  /** Returns whether the wrapped listener was garbage collected. */
+  public boolean wasGarbageCollected() {
+    return listener.get() == null;
+  }
+
+  @Override
+  public void changed(
+      ObservableValue<? extends T> observable, @Nullable T oldValue, @Nullable T newValue) {
+    ChangeListener<? super T> delegate = listener.get();
+    if (delegate != null) {
+      delegate.changed(observable, oldValue, newValue);
+    } else {
+      observable.removeListener(this);
+    }
+  }
+}
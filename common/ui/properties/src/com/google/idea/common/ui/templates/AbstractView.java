@@ -18,43 +18,163 @@
  */
 package com.google.idea.common.ui.templates;
 
-import com.intellij.ui.AncestorListenerAdapter;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.idea.common.ui.properties.ChangeListener;
+import com.google.idea.common.ui.properties.ObservableValue;
+import com.intellij.openapi.Disposable;
+import java.awt.event.HierarchyEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
 import javax.swing.JComponent;
-import javax.swing.event.AncestorEvent;
 
 /**
  * The view of the ViewModel architectural pattern that allows binding of the model's properties to
  * the Swing components of the view.
+ *
+ * <p>The view is bound while its component is showing, or while a {@link #retainBinding()} handle
+ * is held. Bindings are reference-counted: re-parenting, tab switches and card layouts only cause
+ * a rebind if the component actually stopped showing, and {@link #bind()} is deferred until it is
+ * shown.
+ *
+ * <p>Model values registered with {@link #bindToView} are pushed into the view when it is bound,
+ * and on every change while it stays bound. On a rebind, only values which changed since they were
+ * last pushed are pushed again.
  */
 public abstract class AbstractView<C extends JComponent> implements View<C> {
   private C component;
 
+  private final List<ViewBinding<?>> viewBindings = new ArrayList<>();
+  // The number of reasons to stay bound: showing, plus each retained binding.
+  private int bindingReferences = 0;
+  private boolean showing = false;
+
   @Override
   public C getComponent() {
     if (component == null) {
       component = createComponent();
-      component.addAncestorListener(
-          new AncestorListenerAdapter() {
-            @Override
-            public void ancestorAdded(AncestorEvent event) {
-              bind();
-            }
-
-            @Override
-            public void ancestorRemoved(AncestorEvent event) {
-              unbind();
+      component.addHierarchyListener(
+          event -> {
+            if ((event.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+              setShowing(component.isShowing());
             }
           });
+      setShowing(component.isShowing());
     }
     return component;
   }
 
+  @VisibleForTesting
+  void setShowing(boolean showing) {
+    if (this.showing == showing) {
+      return;
+    }
+    this.showing = showing;
+    if (showing) {
+      retain();
+    } else {
+      release();
+    }
+  }
+
+  /**
+   * Keeps the view bound until the returned {@link Disposable} is disposed, even while its
+   * component isn't showing.
+   */
+  public Disposable retainBinding() {
+    retain();
+    boolean[] disposed = {false};
+    return () -> {
+      if (!disposed[0]) {
+        disposed[0] = true;
+        release();
+      }
+    };
+  }
+
+  /** Returns whether the view is currently bound to the model. */
+  public boolean isBound() {
+    return bindingReferences > 0;
+  }
+
+  private void retain() {
+    if (bindingReferences++ == 0) {
+      viewBindings.forEach(ViewBinding::bind);
+      bind();
+    }
+  }
+
+  private void release() {
+    if (--bindingReferences == 0) {
+      unbind();
+      viewBindings.forEach(ViewBinding::unbind);
+    }
+  }
+
+  /**
+   * Pushes the value of {@code property} into the view via {@code viewUpdater} while the view is
+   * bound. Usually called from {@link #createComponent()}.
+   *
+   * <p>The value is pushed on binding, unless it's equal to the value pushed last, and then on
+   * every change until the view is unbound.
+   */
+  protected final <T> void bindToView(
+      ObservableValue<T> property, Consumer<? super T> viewUpdater) {
+    ViewBinding<T> binding = new ViewBinding<>(property, viewUpdater);
+    viewBindings.add(binding);
+    if (isBound()) {
+      binding.bind();
+    }
+  }
+
   /** Create a Swing component corresponding to the view. */
   protected abstract C createComponent();
 
-  /** Bind properties of the model to Swing UI elements */
+  /**
+   * Bind properties of the model to Swing UI elements. Called after the values registered with
+   * {@link #bindToView} were bound.
+   */
   protected abstract void bind();
 
-  /** Unbind properties of the model from Swing UI elements */
+  /**
+   * Unbind properties of the model from Swing UI elements. Called before the values registered
+   * with {@link #bindToView} are unbound.
+   */
   protected abstract void unbind();
+
+  /** A model value pushed into the view while it's bound. */
+  private static final class ViewBinding<T> {
+    private final ObservableValue<T> property;
+    private final Consumer<? super T> viewUpdater;
+    private final ChangeListener<T> listener;
+
+    private boolean pushed = false;
+    @Nullable private T pushedValue;
+
+    ViewBinding(ObservableValue<T> property, Consumer<? super T> viewUpdater) {
+      this.property = property;
+      this.viewUpdater = viewUpdater;
+      this.listener = (observable, oldValue, newValue) -> push(newValue);
+    }
+
+    void bind() {
+      T value = property.getValue();
+      if (!pushed || !Objects.equals(pushedValue, value)) {
+        push(value);
+      }
+      property.addListener(listener);
+    }
+
+    void unbind() {
+      property.removeListener(listener);
+    }
+
+    private void push(@Nullable T value) {
+      pushed = true;
+      pushedValue = value;
+      viewUpdater.accept(value);
+    }
+  }
 }
@@ -0,0 +1,82 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.ui.properties;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link BooleanProperty}. */
+@RunWith(JUnit4.class)
+public class BooleanPropertyTest {
+
+  @Test
+  public void defaultValueIsFalse() {
+    assertThat(new BooleanProperty().get()).isFalse();
+  }
+
+  @Test
+  public void toggleTriggersBooleanAndBoxedListeners() {
+    BooleanProperty property = new BooleanProperty(false);
+    List<String> observedChanges = new ArrayList<>();
+    property.addBooleanListener(
+        (observable, oldValue, newValue) -> observedChanges.add("boolean: " + newValue));
+    property.addListener(
+        (observable, oldValue, newValue) -> observedChanges.add("boxed: " + newValue));
+
+    property.set(true);
+    property.set(true);
+    property.set(false);
+
+    assertThat(observedChanges)
+        .containsExactly("boolean: true", "boxed: true", "boolean: false", "boxed: false")
+        .inOrder();
+  }
+
+  @Test
+  public void boxedViewWorksWithDerivedValues() {
+    BooleanProperty property = new BooleanProperty(false);
+    ObservableValue<String> label = property.map(value -> value ? "on" : "off");
+
+    property.set(true);
+
+    assertThat(label.getValue()).isEqualTo("on");
+  }
+
+  @Test
+  public void batchNotifiesOnceWithValueFromBeforeBatch() {
+    BooleanProperty property = new BooleanProperty(false);
+    List<String> observedChanges = new ArrayList<>();
+    property.addBooleanListener(
+        (observable, oldValue, newValue) -> observedChanges.add(oldValue + " -> " + newValue));
+
+    Property.batch(
+        () -> {
+          property.set(true);
+          property.set(false);
+          property.set(true);
+        });
+
+    assertThat(observedChanges).containsExactly("false -> true");
+  }
+}
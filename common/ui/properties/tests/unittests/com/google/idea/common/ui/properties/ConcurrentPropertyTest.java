@@ -0,0 +1,154 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.ui.properties;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link ConcurrentProperty}. */
+@RunWith(JUnit4.class)
+public class ConcurrentPropertyTest {
+
+  // Stands in for the EDT, dispatches are only run when the test says so.
+  private final ConcurrentLinkedQueue<Runnable> pendingDispatches = new ConcurrentLinkedQueue<>();
+
+  private <T> ConcurrentProperty<T> createProperty(T value) {
+    return new ConcurrentProperty<>(value, pendingDispatches::add, Duration.ZERO);
+  }
+
+  private void runPendingDispatches() {
+    Runnable dispatch;
+    while ((dispatch = pendingDispatches.poll()) != null) {
+      dispatch.run();
+    }
+  }
+
+  @Test
+  public void valueIsUpdatedImmediately() {
+    ConcurrentProperty<String> property = createProperty("InitialValue");
+
+    property.setValue("DifferentValue");
+
+    assertThat(property.getValue()).isEqualTo("DifferentValue");
+  }
+
+  @Test
+  public void listenersAreOnlyNotifiedOnDispatch() {
+    ConcurrentProperty<String> property = createProperty("InitialValue");
+    List<String> observedValues = new ArrayList<>();
+    property.addListener((observable, oldValue, newValue) -> observedValues.add(newValue));
+
+    property.setValue("DifferentValue");
+
+    assertThat(observedValues).isEmpty();
+    runPendingDispatches();
+    assertThat(observedValues).containsExactly("DifferentValue");
+  }
+
+  @Test
+  public void updatesBeforeDispatchAreCoalesced() {
+    ConcurrentProperty<String> property = createProperty("InitialValue");
+    List<String> observedChanges = new ArrayList<>();
+    property.addListener(observable -> observedChanges.add("invalidated"));
+    property.addListener(
+        (observable, oldValue, newValue) -> observedChanges.add(oldValue + " -> " + newValue));
+
+    property.setValue("Value 1");
+    property.setValue("Value 2");
+    property.setValue("Value 3");
+
+    assertThat(pendingDispatches).hasSize(1);
+    runPendingDispatches();
+    assertThat(observedChanges)
+        .containsExactly("invalidated", "InitialValue -> Value 3")
+        .inOrder();
+  }
+
+  @Test
+  public void updateAfterDispatchIsDispatchedAgain() {
+    ConcurrentProperty<String> property = createProperty("InitialValue");
+    List<String> observedChanges = new ArrayList<>();
+    property.addListener(
+        (observable, oldValue, newValue) -> observedChanges.add(oldValue + " -> " + newValue));
+
+    property.setValue("Value 1");
+    runPendingDispatches();
+    property.setValue("Value 2");
+    runPendingDispatches();
+
+    assertThat(observedChanges)
+        .containsExactly("InitialValue -> Value 1", "Value 1 -> Value 2")
+        .inOrder();
+  }
+
+  @Test
+  public void changeListenerIsNotTriggeredIfValueIsRestoredBeforeDispatch() {
+    ConcurrentProperty<String> property = createProperty("InitialValue");
+    List<String> observedValues = new ArrayList<>();
+    property.addListener((observable, oldValue, newValue) -> observedValues.add(newValue));
+
+    property.setValue("DifferentValue");
+    property.setValue("InitialValue");
+    runPendingDispatches();
+
+    assertThat(observedValues).isEmpty();
+  }
+
+  @Test
+  public void newestValueOfConcurrentUpdatesIsDelivered() throws Exception {
+    ConcurrentProperty<Integer> property = createProperty(0);
+    List<Integer> observedValues = new ArrayList<>();
+    property.addListener((observable, oldValue, newValue) -> observedValues.add(newValue));
+    int threads = 4;
+    int updatesPerThread = 1000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    for (int t = 0; t < threads; t++) {
+      executor.execute(
+          () -> {
+            try {
+              start.await();
+            } catch (InterruptedException e) {
+              throw new AssertionError(e);
+            }
+            for (int i = 1; i <= updatesPerThread; i++) {
+              property.setValue(i);
+            }
+          });
+    }
+    start.countDown();
+    executor.shutdown();
+    assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(pendingDispatches.size()).isAtMost(1);
+    runPendingDispatches();
+    assertThat(observedValues).containsExactly(updatesPerThread);
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.ui.properties;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link DerivedValue}. */
+@RunWith(JUnit4.class)
+public class DerivedValueTest {
+
+  @Test
+  public void mappedValueIsComputedOnlyWhenRead() {
+    Property<String> property = new Property<>("value");
+    AtomicInteger computations = new AtomicInteger();
+    ObservableValue<Integer> length =
+        property.map(
+            value -> {
+              computations.incrementAndGet();
+              return value.length();
+            });
+
+    property.setValue("longer value");
+
+    assertThat(computations.get()).isEqualTo(0);
+    assertThat(length.getValue()).isEqualTo(12);
+    assertThat(computations.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void mappedValueIsMemoizedWithoutListeners() {
+    Property<String> property = new Property<>("value");
+    AtomicInteger computations = new AtomicInteger();
+    ObservableValue<Integer> length =
+        property.map(
+            value -> {
+              computations.incrementAndGet();
+              return value.length();
+            });
+
+    length.getValue();
+    length.getValue();
+    property.setValue("other");
+    length.getValue();
+
+    assertThat(computations.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void unobservedValueIsRecomputedWhenInputIsUpdatedWithSameInstance() {
+    List<String> names = new ArrayList<>();
+    Property<List<String>> property = new Property<>(names);
+    Property<String> separator = new Property<>(",");
+    ObservableValue<Integer> size = property.map(List::size);
+    ObservableValue<String> joined = ObservableValue.combine(separator, property, String::join);
+    assertThat(size.getValue()).isEqualTo(0);
+    assertThat(joined.getValue()).isEmpty();
+
+    names.add("a");
+    names.add("b");
+    property.setValue(names);
+
+    assertThat(size.getValue()).isEqualTo(2);
+    assertThat(joined.getValue()).isEqualTo("a,b");
+  }
+
+  @Test
+  public void mappedValueOfUnsetValueIsUnset() {
+    Property<String> property = new Property<>();
+
+    assertThat(property.map(String::length).getValue()).isNull();
+  }
+
+  @Test
+  public void invalidationIsReportedOnceUntilValueIsRead() {
+    Property<String> property = new Property<>("value");
+    AtomicInteger computations = new AtomicInteger();
+    ObservableValue<Integer> length =
+        property.map(
+            value -> {
+              computations.incrementAndGet();
+              return value.length();
+            });
+    List<String> observedEvents = new ArrayList<>();
+    length.addListener(observable -> observedEvents.add("invalidated"));
+    int computationsAfterSubscription = computations.get();
+
+    property.setValue("a");
+    property.setValue("ab");
+
+    assertThat(observedEvents).containsExactly("invalidated");
+    assertThat(computations.get()).isEqualTo(computationsAfterSubscription);
+
+    assertThat(length.getValue()).isEqualTo(2);
+    property.setValue("abc");
+
+    assertThat(observedEvents).containsExactly("invalidated", "invalidated");
+  }
+
+  @Test
+  public void changeListenerIsOnlyTriggeredIfDerivedValueChanges() {
+    Property<String> property = new Property<>("abc");
+    ObservableValue<Integer> length = property.map(String::length);
+    List<String> observedChanges = new ArrayList<>();
+    length.addListener(
+        (observable, oldValue, newValue) -> observedChanges.add(oldValue + " -> " + newValue));
+
+    property.setValue("xyz");
+    property.setValue("ab");
+
+    assertThat(observedChanges).containsExactly("3 -> 2");
+  }
+
+  @Test
+  public void inputsAreNotObservedAfterLastListenerIsRemoved() {
+    Property<String> property = new Property<>("value");
+    AtomicInteger computations = new AtomicInteger();
+    ObservableValue<Integer> length =
+        property.map(
+            value -> {
+              computations.incrementAndGet();
+              return value.length();
+            });
+    List<Integer> observedValues = new ArrayList<>();
+    ChangeListener<Integer> listener =
+        (observable, oldValue, newValue) -> observedValues.add(newValue);
+    length.addListener(listener);
+    length.removeListener(listener);
+    int computationsAfterRemoval = computations.get();
+
+    property.setValue("other value");
+
+    assertThat(observedValues).isEmpty();
+    assertThat(computations.get()).isEqualTo(computationsAfterRemoval);
+    assertThat(length.getValue()).isEqualTo(11);
+  }
+
+  @Test
+  public void combinedValueReflectsBothInputs() {
+    Property<String> first = new Property<>("a");
+    Property<String> second = new Property<>("b");
+    ObservableValue<String> combined = ObservableValue.combine(first, second, (x, y) -> x + y);
+    List<String> observedValues = new ArrayList<>();
+    combined.addListener((observable, oldValue, newValue) -> observedValues.add(newValue));
+
+    first.setValue("c");
+    second.setValue("d");
+
+    assertThat(combined.getValue()).isEqualTo("cd");
+    assertThat(observedValues).containsExactly("cb", "cd").inOrder();
+  }
+
+  @Test
+  public void flatMappedValueFollowsSelectedValue() {
+    Property<String> left = new Property<>("left");
+    Property<String> right = new Property<>("right");
+    Property<Boolean> useLeft = new Property<>(true);
+    ObservableValue<String> selected = useLeft.flatMap(value -> value ? left : right);
+    List<String> observedValues = new ArrayList<>();
+    selected.addListener((observable, oldValue, newValue) -> observedValues.add(newValue));
+
+    left.setValue("left 2");
+    useLeft.setValue(false);
+    left.setValue("left 3");
+    right.setValue("right 2");
+
+    assertThat(observedValues).containsExactly("left 2", "right", "right 2").inOrder();
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.ui.properties;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link IntProperty}. */
+@RunWith(JUnit4.class)
+public class IntPropertyTest {
+
+  @Test
+  public void defaultValueIsZero() {
+    assertThat(new IntProperty().get()).isEqualTo(0);
+  }
+
+  @Test
+  public void valueCanBeSet() {
+    IntProperty property = new IntProperty(1);
+    property.set(2);
+
+    assertThat(property.get()).isEqualTo(2);
+    assertThat(property.getValue()).isEqualTo(2);
+  }
+
+  @Test
+  public void newValueTriggersIntListenerWithOldAndNewValue() {
+    IntProperty property = new IntProperty(1);
+    List<String> observedChanges = new ArrayList<>();
+    property.addIntListener(
+        (observable, oldValue, newValue) -> observedChanges.add(oldValue + " -> " + newValue));
+
+    property.set(2);
+
+    assertThat(observedChanges).containsExactly("1 -> 2");
+  }
+
+  @Test
+  public void unchangedValueOnlyTriggersInvalidationListener() {
+    IntProperty property = new IntProperty(1);
+    List<String> observedEvents = new ArrayList<>();
+    property.addListener(observable -> observedEvents.add("invalidated"));
+    property.addIntListener((observable, oldValue, newValue) -> observedEvents.add("int"));
+    property.addListener((observable, oldValue, newValue) -> observedEvents.add("boxed"));
+
+    property.set(1);
+
+    assertThat(observedEvents).containsExactly("invalidated");
+  }
+
+  @Test
+  public void newValueTriggersAllListenerKinds() {
+    IntProperty property = new IntProperty(1);
+    List<String> observedEvents = new ArrayList<>();
+    property.addListener(observable -> observedEvents.add("invalidated: " + observable.getValue()));
+    property.addIntListener(
+        (observable, oldValue, newValue) -> observedEvents.add("int: " + newValue));
+    property.addListener(
+        (observable, oldValue, newValue) -> observedEvents.add("boxed: " + newValue));
+
+    property.set(2);
+
+    assertThat(observedEvents)
+        .containsExactly("invalidated: 2", "int: 2", "boxed: 2")
+        .inOrder();
+  }
+
+  @Test
+  public void newValueDoesNotTriggerRemovedIntListener() {
+    IntProperty property = new IntProperty(1);
+    List<Integer> observedValues = new ArrayList<>();
+    IntChangeListener listener = (observable, oldValue, newValue) -> observedValues.add(newValue);
+    property.addIntListener(listener);
+    property.removeIntListener(listener);
+
+    property.set(2);
+
+    assertThat(observedValues).isEmpty();
+  }
+
+  @Test
+  public void nestedUpdateIsNotifiedAfterCurrentUpdate() {
+    IntProperty property = new IntProperty(0);
+    List<String> observedChanges = new ArrayList<>();
+    property.addIntListener(
+        (observable, oldValue, newValue) -> {
+          observedChanges.add(oldValue + " -> " + newValue);
+          if (newValue == 1) {
+            observable.set(2);
+          }
+        });
+
+    property.set(1);
+
+    assertThat(observedChanges).containsExactly("0 -> 1", "1 -> 2").inOrder();
+  }
+
+  @Test
+  public void batchNotifiesOnceWithValueFromBeforeBatch() {
+    IntProperty property = new IntProperty(1);
+    Property<String> other = new Property<>("a");
+    List<String> observedEvents = new ArrayList<>();
+    property.addListener(observable -> observedEvents.add("invalidated"));
+    property.addIntListener(
+        (observable, oldValue, newValue) -> observedEvents.add(oldValue + " -> " + newValue));
+    other.addListener(observable -> observedEvents.add("other invalidated"));
+
+    Property.batch(
+        () -> {
+          property.set(2);
+          other.setValue("b");
+          property.set(3);
+          assertThat(observedEvents).isEmpty();
+        });
+
+    assertThat(observedEvents)
+        .containsExactly("invalidated", "1 -> 3", "other invalidated")
+        .inOrder();
+  }
+
+  @Test
+  public void batchRestoringValueDoesNotNotify() {
+    IntProperty property = new IntProperty(1);
+    List<String> observedEvents = new ArrayList<>();
+    property.addListener(observable -> observedEvents.add("invalidated"));
+
+    Property.batch(
+        () -> {
+          property.set(2);
+          property.set(1);
+        });
+
+    assertThat(observedEvents).isEmpty();
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.ui.properties;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.JList;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link ObservableListModel}. */
+@RunWith(JUnit4.class)
+public class ObservableListModelTest {
+
+  @Test
+  public void forwardsIntervalEvents() {
+    ObservableList<String> list = new ObservableList<>(ImmutableList.of("a", "b", "c"));
+    ObservableListModel<String> model = new ObservableListModel<>(list, () -> {});
+    List<String> events = recordEvents(model);
+
+    list.addAll(ImmutableList.of("d", "e"));
+    list.subList(0, 2).clear();
+    list.set(0, "x");
+
+    assertThat(events)
+        .containsExactly("added 3-4 of 5", "removed 0-1 of 3", "changed 0-0 of 3")
+        .inOrder();
+    assertThat(model.getSize()).isEqualTo(3);
+    assertThat(model.getElementAt(0)).isEqualTo("x");
+  }
+
+  @Test
+  public void batchIsReportedChangeByChange() {
+    ObservableList<String> list = new ObservableList<>(ImmutableList.of("a", "b", "c", "d", "e"));
+    ObservableListModel<String> model = new ObservableListModel<>(list, () -> {});
+    List<String> events = recordEvents(model);
+
+    list.batch(
+        () -> {
+          list.addAll(0, ImmutableList.of("1", "2"));
+          list.subList(3, 7).clear();
+        });
+
+    assertThat(list).containsExactly("1", "2", "a").inOrder();
+    assertThat(events).containsExactly("added 0-1 of 7", "removed 3-6 of 3").inOrder();
+  }
+
+  @Test
+  public void setAllIsReportedAsRemovalAndAddition() {
+    ObservableList<String> list = new ObservableList<>(ImmutableList.of("a", "b", "c"));
+    ObservableListModel<String> model = new ObservableListModel<>(list, () -> {});
+    List<String> events = recordEvents(model);
+
+    list.setAll(ImmutableList.of("x", "y"));
+
+    assertThat(events).containsExactly("removed 0-2 of 0", "added 0-1 of 2").inOrder();
+    assertThat(model.getElementAt(1)).isEqualTo("y");
+  }
+
+  @Test
+  public void modificationByEarlierListenerIsForwardedInOrder() {
+    ObservableList<String> list = new ObservableList<>(ImmutableList.of("a", "b"));
+    list.addListener(
+        (observable, changes) -> {
+          if (list.size() == 3) {
+            list.remove(0);
+          }
+        });
+    ObservableListModel<String> model = new ObservableListModel<>(list, () -> {});
+    JList<String> view = new JList<>(model);
+    view.setSelectedIndex(1);
+    List<String> events = recordEvents(model);
+
+    list.add("c");
+
+    assertThat(events).containsExactly("added 2-2 of 3", "removed 0-0 of 2").inOrder();
+    assertThat(view.getSelectedValue()).isEqualTo("b");
+    assertThat(model.getElementAt(1)).isEqualTo("c");
+  }
+
+  @Test
+  public void listStaysConsistentWithSelection() {
+    ObservableList<String> list = new ObservableList<>(ImmutableList.of("a", "b", "c"));
+    JList<String> view = new JList<>(new ObservableListModel<>(list, () -> {}));
+    view.setSelectedIndex(2);
+
+    list.add(0, "x");
+    assertThat(view.getSelectedValue()).isEqualTo("c");
+
+    list.remove(0);
+    assertThat(view.getSelectedValue()).isEqualTo("c");
+  }
+
+  private static List<String> recordEvents(ObservableListModel<String> model) {
+    List<String> events = new ArrayList<>();
+    model.addListDataListener(
+        new ListDataListener() {
+          @Override
+          public void intervalAdded(ListDataEvent e) {
+            events.add(describe("added", e));
+          }
+
+          @Override
+          public void intervalRemoved(ListDataEvent e) {
+            events.add(describe("removed", e));
+          }
+
+          @Override
+          public void contentsChanged(ListDataEvent e) {
+            events.add(describe("changed", e));
+          }
+        });
+    return events;
+  }
+
+  private static String describe(String kind, ListDataEvent e) {
+    ObservableListModel<?> model = (ObservableListModel<?>) e.getSource();
+    return kind + " " + e.getIndex0() + "-" + e.getIndex1() + " of " + model.getSize();
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.ui.properties;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link ObservableList}. */
+@RunWith(JUnit4.class)
+public class ObservableListTest {
+
+  @Test
+  public void addReportsAddedRange() {
+    ObservableList<String> list = new ObservableList<>(ImmutableList.of("a", "d"));
+    List<List<ListChange<String>>> notifications = record(list);
+
+    list.addAll(1, ImmutableList.of("b", "c"));
+
+    assertThat(list).containsExactly("a", "b", "c", "d").inOrder();
+    assertThat(notifications).hasSize(1);
+    ListChange<String> change = notifications.get(0).get(0);
+    assertThat(change.getKind()).isEqualTo(ListChange.Kind.ADDED);
+    assertThat(change.getFrom()).isEqualTo(1);
+    assertThat(change.getTo()).isEqualTo(3);
+  }
+
+  @Test
+  public void removeReportsRemovedElements() {
+    ObservableList<String> list = new ObservableList<>(ImmutableList.of("a", "b", "c", "d"));
+    List<List<ListChange<String>>> notifications = record(list);
+
+    list.subList(1, 3).clear();
+
+    assertThat(list).containsExactly("a", "d").inOrder();
+    assertThat(notifications).hasSize(1);
+    ListChange<String> change = notifications.get(0).get(0);
+    assertThat(change.getKind()).isEqualTo(ListChange.Kind.REMOVED);
+    assertThat(change.getFrom()).isEqualTo(1);
+    assertThat(change.getRemoved()).containsExactly("b", "c").inOrder();
+  }
+
+  @Test
+  public void setReportsReplacedElement() {
+    ObservableList<String> list = new ObservableList<>(ImmutableList.of("a", "b"));
+    List<List<ListChange<String>>> notifications = record(list);
+
+    list.set(1, "x");
+
+    ListChange<String> change = notifications.get(0).get(0);
+    assertThat(change.getKind()).isEqualTo(ListChange.Kind.REPLACED);
+    assertThat(change.getFrom()).isEqualTo(1);
+    assertThat(change.getTo()).isEqualTo(2);
+    assertThat(change.getRemoved()).containsExactly("b");
+  }
+
+  @Test
+  public void batchMergesAdjacentChangesIntoOneNotification() {
+    ObservableList<String> list = new ObservableList<>(ImmutableList.of("a", "b", "c", "d"));
+    List<List<ListChange<String>>> notifications = record(list);
+
+    list.batch(
+        () -> {
+          list.add("e");
+          list.add("f");
+          list.remove(1);
+          list.remove(1);
+        });
+
+    assertThat(list).containsExactly("a", "d", "e", "f").inOrder();
+    assertThat(notifications).hasSize(1);
+    List<ListChange<String>> changes = notifications.get(0);
+    assertThat(changes).hasSize(2);
+    assertThat(changes.get(0).getKind()).isEqualTo(ListChange.Kind.ADDED);
+    assertThat(changes.get(0).getFrom()).isEqualTo(4);
+    assertThat(changes.get(0).getTo()).isEqualTo(6);
+    assertThat(changes.get(1).getKind()).isEqualTo(ListChange.Kind.REMOVED);
+    assertThat(changes.get(1).getRemoved()).containsExactly("b", "c").inOrder();
+  }
+
+  @Test
+  public void setAllNotifiesOnce() {
+    ObservableList<String> list = new ObservableList<>(ImmutableList.of("a", "b"));
+    List<List<ListChange<String>>> notifications = record(list);
+
+    list.setAll(ImmutableList.of("x", "y", "z"));
+
+    assertThat(list).containsExactly("x", "y", "z").inOrder();
+    assertThat(notifications).hasSize(1);
+    assertThat(notifications.get(0)).hasSize(2);
+  }
+
+  @Test
+  public void sortReportsPermutation() {
+    ObservableList<String> list = new ObservableList<>(ImmutableList.of("c", "a", "b"));
+    List<List<ListChange<String>>> notifications = record(list);
+
+    list.sort(Comparator.naturalOrder());
+
+    assertThat(list).containsExactly("a", "b", "c").inOrder();
+    ListChange<String> change = notifications.get(0).get(0);
+    assertThat(change.getKind()).isEqualTo(ListChange.Kind.PERMUTED);
+    assertThat(change.getPermutation(0)).isEqualTo(2);
+    assertThat(change.getPermutation(1)).isEqualTo(0);
+    assertThat(change.getPermutation(2)).isEqualTo(1);
+  }
+
+  @Test
+  public void sortOfSortedListDoesNotNotify() {
+    ObservableList<String> list = new ObservableList<>(ImmutableList.of("a", "b"));
+    List<List<ListChange<String>>> notifications = record(list);
+
+    list.sort(null);
+
+    assertThat(notifications).isEmpty();
+  }
+
+  @Test
+  public void changesByListenersAreDeliveredInOrder() {
+    ObservableList<String> list = new ObservableList<>(ImmutableList.of("a"));
+    list.addListener(
+        (observable, changes) -> {
+          if (list.size() == 2) {
+            list.add("c");
+          }
+        });
+    List<String> observed = new ArrayList<>();
+    list.addListener(
+        (observable, changes) -> changes.forEach(change -> observed.add(change.toString())));
+
+    list.add("b");
+
+    assertThat(observed).containsExactly("ADDED[1, 2)", "ADDED[2, 3)").inOrder();
+  }
+
+  @Test
+  public void changesReportAddedElements() {
+    ObservableList<String> list = new ObservableList<>(ImmutableList.of("a", "d"));
+    List<List<ListChange<String>>> notifications = record(list);
+
+    list.batch(
+        () -> {
+          list.add(1, "c");
+          list.add(1, "b");
+          list.set(0, "x");
+        });
+
+    assertThat(notifications.get(0).get(0).getAdded()).containsExactly("b", "c").inOrder();
+    assertThat(notifications.get(0).get(1).getAdded()).containsExactly("x");
+    assertThat(notifications.get(0).get(1).getRemoved()).containsExactly("a");
+  }
+
+  private static <T> List<List<ListChange<T>>> record(ObservableList<T> list) {
+    List<List<ListChange<T>>> notifications = new ArrayList<>();
+    list.addListener((observable, changes) -> notifications.add(changes));
+    return notifications;
+  }
+
+  @Test
+  public void listenerRemovedBeforeDisposalIsReleasedByDisposable() {
+    ObservableList<String> list = new ObservableList<>();
+    List<String> observed = new ArrayList<>();
+    ListChangeListener<String> listener = (l, changes) -> observed.add(l.get(l.size() - 1));
+    Disposable disposable = Disposer.newDisposable();
+    list.addListener(listener, disposable);
+
+    list.removeListener(listener);
+    list.addListener(listener);
+    Disposer.dispose(disposable);
+    list.add("a");
+
+    assertThat(observed).containsExactly("a");
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.ui.properties;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import javax.swing.JTable;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.table.TableModel;
+import javax.swing.table.TableRowSorter;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link ObservableTableModel}. */
+@RunWith(JUnit4.class)
+public class ObservableTableModelTest {
+
+  private ObservableList<String> list;
+  private ObservableTableModel<String> model;
+  private JTable table;
+
+  @Before
+  public void createTable() {
+    list = new ObservableList<>(ImmutableList.of("b", "d", "a", "c"));
+    model =
+        new ObservableTableModel<>(
+            list,
+            ImmutableList.of(
+                new ObservableTableModel.Column<>("Name", String.class, name -> name),
+                new ObservableTableModel.Column<>("Length", Integer.class, String::length)),
+            () -> {});
+    table = new JTable(model);
+    TableRowSorter<TableModel> sorter = new TableRowSorter<>(model);
+    sorter.setSortKeys(ImmutableList.of(new RowSorter.SortKey(0, SortOrder.ASCENDING)));
+    table.setRowSorter(sorter);
+  }
+
+  @Test
+  public void describesColumns() {
+    assertThat(model.getColumnCount()).isEqualTo(2);
+    assertThat(model.getColumnName(1)).isEqualTo("Length");
+    assertThat(model.getColumnClass(1)).isEqualTo(Integer.class);
+    assertThat(model.getValueAt(0, 0)).isEqualTo("b");
+  }
+
+  @Test
+  public void sortedTableFollowsSingleChanges() {
+    list.add("aa");
+    assertThat(viewRows()).containsExactly("a", "aa", "b", "c", "d").inOrder();
+
+    list.remove("b");
+    assertThat(viewRows()).containsExactly("a", "aa", "c", "d").inOrder();
+
+    list.set(0, "z");
+    assertThat(viewRows()).containsExactly("a", "aa", "c", "z").inOrder();
+  }
+
+  @Test
+  public void sortedTableFollowsBatchOfChanges() {
+    list.batch(
+        () -> {
+          list.addAll(ImmutableList.of("e", "f", "g", "h", "i"));
+          list.subList(0, 4).clear();
+        });
+
+    assertThat(viewRows()).containsExactly("e", "f", "g", "h", "i").inOrder();
+  }
+
+  @Test
+  public void sortedTableFollowsSetAll() {
+    List<String> events = new ArrayList<>();
+    model.addTableModelListener(
+        e -> events.add(e.getType() + " " + e.getFirstRow() + "-" + e.getLastRow()));
+
+    list.setAll(ImmutableList.of("y", "x"));
+
+    assertThat(events).containsExactly("-1 0-3", "1 0-1").inOrder();
+    assertThat(viewRows()).containsExactly("x", "y").inOrder();
+  }
+
+  @Test
+  public void selectionFollowsInsertedRows() {
+    table.setRowSorter(null);
+    table.setRowSelectionInterval(1, 1);
+
+    list.add(0, "x");
+
+    assertThat(table.getSelectedRow()).isEqualTo(2);
+    assertThat(table.getValueAt(2, 0)).isEqualTo("d");
+  }
+
+  @Test
+  public void notifiesTableModelListeners() {
+    List<String> events = new ArrayList<>();
+    model.addTableModelListener(
+        e -> events.add(e.getType() + " " + e.getFirstRow() + "-" + e.getLastRow()));
+
+    list.add("e");
+    list.batch(
+        () -> {
+          list.add("f");
+          list.remove(0);
+        });
+
+    assertThat(events).containsExactly("1 4-4", "1 5-5", "-1 0-0").inOrder();
+  }
+
+  private List<Object> viewRows() {
+    List<Object> rows = new ArrayList<>();
+    IntStream.range(0, table.getRowCount()).forEach(row -> rows.add(table.getValueAt(row, 0)));
+    return rows;
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.ui.properties;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import javax.swing.SwingUtilities;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link PropertyInstrumentation}. */
+@RunWith(JUnit4.class)
+public class PropertyInstrumentationTest {
+
+  /** A listener with a recognizable class name. */
+  private static final class CountingListener implements ChangeListener<String> {
+    int invocations = 0;
+
+    @Override
+    public void changed(
+        ObservableValue<? extends String> observable, String oldValue, String newValue) {
+      invocations++;
+    }
+  }
+
+  /** A primitive listener with a recognizable class name. */
+  private static final class CountingLongListener implements LongChangeListener {
+    int invocations = 0;
+
+    @Override
+    public void changed(LongProperty property, long oldValue, long newValue) {
+      invocations++;
+    }
+  }
+
+  @After
+  public void tearDown() {
+    PropertyInstrumentation.disable();
+    PropertyInstrumentation.reset();
+  }
+
+  @Test
+  public void nothingIsRecordedWhileDisabled() {
+    Property<String> property = new Property<>("InitialValue");
+    CountingListener listener = new CountingListener();
+    property.addListener(listener);
+
+    property.setValue("DifferentValue");
+
+    assertThat(listener.invocations).isEqualTo(1);
+    assertThat(findRow(CountingListener.class.getName()).isPresent()).isFalse();
+  }
+
+  @Test
+  public void invocationsAreCountedPerListenerClass() {
+    PropertyInstrumentation.enable(Duration.ofHours(1));
+    Property<String> property = new Property<>("InitialValue");
+    property.addListener(new CountingListener());
+    property.addListener(new CountingListener());
+
+    property.setValue("Value 1");
+    property.setValue("Value 2");
+
+    String[] row = findRow(CountingListener.class.getName()).get();
+    assertThat(row[1]).isEqualTo("4");
+    assertThat(row[4]).isEqualTo("0");
+  }
+
+  @Test
+  public void enablingTakesEffectWithNextUpdate() {
+    Property<String> property = new Property<>("InitialValue");
+    property.addListener(observable -> PropertyInstrumentation.enable(Duration.ofHours(1)));
+    property.addListener(new CountingListener());
+
+    property.setValue("Value 1");
+    assertThat(findRow(CountingListener.class.getName()).isPresent()).isFalse();
+
+    property.setValue("Value 2");
+    assertThat(findRow(CountingListener.class.getName()).get()[1]).isEqualTo("1");
+  }
+
+  @Test
+  public void slowListenersOnEdtAreFlagged() throws Exception {
+    PropertyInstrumentation.enable(Duration.ZERO);
+    Property<String> property = new Property<>("InitialValue");
+    property.addListener(new CountingListener());
+
+    SwingUtilities.invokeAndWait(() -> property.setValue("DifferentValue"));
+
+    String[] row = findRow(CountingListener.class.getName()).get();
+    assertThat(row[1]).isEqualTo("1");
+    assertThat(row[4]).isEqualTo("1");
+  }
+
+  @Test
+  public void primitivePropertyListenersAreRecorded() {
+    PropertyInstrumentation.enable(Duration.ofHours(1));
+    LongProperty property = new LongProperty();
+    CountingLongListener listener = new CountingLongListener();
+    property.addLongListener(listener);
+
+    property.set(1);
+
+    assertThat(listener.invocations).isEqualTo(1);
+    String[] row = findRow(CountingLongListener.class.getName()).get();
+    assertThat(row[1]).isEqualTo("1");
+  }
+
+  /** Returns the columns of the dumped row starting with {@code name}, if any. */
+  private static Optional<String[]> findRow(String name) {
+    return Arrays.stream(PropertyInstrumentation.dump().split("\n"))
+        .filter(line -> line.startsWith(name + " "))
+        .map(line -> line.trim().split("\\s+"))
+        .findFirst();
+  }
+}
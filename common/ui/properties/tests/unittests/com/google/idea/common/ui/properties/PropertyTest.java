@@ -20,8 +20,11 @@ package com.google.idea.common.ui.properties;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
 import java.util.ArrayList;
 import java.util.List;
+import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -282,4 +285,212 @@ public class PropertyTest {
             "ChangeListener 1",
             "ChangeListener 2");
   }
+
+  @Test
+  public void listenerAddedDuringNotificationIsOnlyTriggeredByNextUpdate() {
+    Property<String> property = new Property<>("InitialValue");
+    List<String> observedValues = new ArrayList<>();
+    ChangeListener<String> addedListener =
+        (observable, oldValue, newValue) -> observedValues.add("added: " + newValue);
+    property.addListener(
+        (observable, oldValue, newValue) -> {
+          observedValues.add("first: " + newValue);
+          property.addListener(addedListener);
+        });
+
+    property.setValue("Value 1");
+    property.setValue("Value 2");
+
+    assertThat(observedValues)
+        .containsExactly("first: Value 1", "first: Value 2", "added: Value 2")
+        .inOrder();
+  }
+
+  @Test
+  public void listenerRemovedDuringNotificationIsStillTriggeredByCurrentUpdate() {
+    Property<String> property = new Property<>("InitialValue");
+    List<String> observedValues = new ArrayList<>();
+    InvalidationListener<String> secondListener =
+        observable -> observedValues.add("second: " + observable.getValue());
+    property.addListener(
+        observable -> {
+          observedValues.add("first: " + observable.getValue());
+          property.removeListener(secondListener);
+        });
+    property.addListener(secondListener);
+
+    property.setValue("Value 1");
+    property.setValue("Value 2");
+
+    assertThat(observedValues)
+        .containsExactly("first: Value 1", "second: Value 1", "first: Value 2")
+        .inOrder();
+  }
+
+  @Test
+  public void nestedUpdateIsNotifiedAfterCurrentUpdate() {
+    Property<String> property = new Property<>("InitialValue");
+    List<String> observedChanges = new ArrayList<>();
+    property.addListener(
+        (observable, oldValue, newValue) -> {
+          observedChanges.add("first: " + oldValue + " -> " + newValue);
+          if (newValue.equals("Value 1")) {
+            property.setValue("Value 2");
+          }
+        });
+    property.addListener(
+        (observable, oldValue, newValue) ->
+            observedChanges.add("second: " + oldValue + " -> " + newValue));
+
+    property.setValue("Value 1");
+
+    assertThat(property.getValue()).isEqualTo("Value 2");
+    assertThat(observedChanges)
+        .containsExactly(
+            "first: InitialValue -> Value 1",
+            "second: InitialValue -> Value 1",
+            "first: Value 1 -> Value 2",
+            "second: Value 1 -> Value 2")
+        .inOrder();
+  }
+
+  @Test
+  public void nestedUpdateRestoringValueIsNotifiedAsChange() {
+    Property<String> property = new Property<>("InitialValue");
+    List<String> observedValues = new ArrayList<>();
+    property.addListener(
+        (observable, oldValue, newValue) -> {
+          if (newValue.equals("Invalid")) {
+            property.setValue(oldValue);
+          }
+        });
+    property.addListener((observable, oldValue, newValue) -> observedValues.add(newValue));
+
+    property.setValue("Invalid");
+
+    assertThat(property.getValue()).isEqualTo("InitialValue");
+    assertThat(observedValues).containsExactly("Invalid", "InitialValue").inOrder();
+  }
+
+  @Test
+  public void listenersAreRemovedWhenDisposableIsDisposed() {
+    Property<String> property = new Property<>("InitialValue");
+    List<String> observedValues = new ArrayList<>();
+    Disposable disposable = Disposer.newDisposable();
+    property.addListener(observable -> observedValues.add("InvalidationListener"), disposable);
+    property.addListener(
+        (observable, oldValue, newValue) -> observedValues.add("ChangeListener"), disposable);
+
+    property.setValue("Value 1");
+    Disposer.dispose(disposable);
+    property.setValue("Value 2");
+
+    assertThat(observedValues).containsExactly("InvalidationListener", "ChangeListener").inOrder();
+  }
+
+  @Test
+  public void listenerRemovedBeforeDisposalIsReleasedByDisposable() {
+    Property<String> property = new Property<>("InitialValue");
+    List<String> observedValues = new ArrayList<>();
+    ChangeListener<String> listener =
+        (observable, oldValue, newValue) -> observedValues.add(newValue);
+    Disposable disposable = Disposer.newDisposable();
+    property.addListener(listener, disposable);
+
+    property.removeListener(listener);
+    property.addListener(listener);
+    Disposer.dispose(disposable);
+    property.setValue("Value");
+
+    assertThat(observedValues).containsExactly("Value");
+  }
+
+  @Test
+  public void batchNotifiesOnceWithOriginalAndFinalValue() {
+    Property<String> property = new Property<>("InitialValue");
+    List<String> observedValues = new ArrayList<>();
+    property.addListener(observable -> observedValues.add("invalidated: " + observable.getValue()));
+    property.addListener(
+        (observable, oldValue, newValue) -> observedValues.add(oldValue + " -> " + newValue));
+
+    Property.batch(
+        () -> {
+          property.setValue("Value 1");
+          property.setValue("Value 2");
+          assertThat(observedValues).isEmpty();
+        });
+
+    assertThat(observedValues)
+        .containsExactly("invalidated: Value 2", "InitialValue -> Value 2")
+        .inOrder();
+  }
+
+  @Test
+  public void batchDoesNotNotifyIfFinalValueEqualsOriginalValue() {
+    Property<String> property = new Property<>("InitialValue");
+    List<String> observedValues = new ArrayList<>();
+    property.addListener(observable -> observedValues.add("invalidated"));
+    property.addListener((observable, oldValue, newValue) -> observedValues.add("changed"));
+
+    Property.batch(
+        () -> {
+          property.setValue("Value 1");
+          property.setValue("InitialValue");
+        });
+
+    assertThat(observedValues).isEmpty();
+  }
+
+  @Test
+  public void batchNotifiesPropertiesInOrderOfFirstUpdate() {
+    Property<String> property1 = new Property<>("Value A");
+    Property<String> property2 = new Property<>("Value B");
+    List<String> observedValues = new ArrayList<>();
+    ChangeListener<String> listener =
+        (observable, oldValue, newValue) -> observedValues.add(newValue);
+    property1.addListener(listener);
+    property2.addListener(listener);
+
+    Property.batch(
+        () -> {
+          property2.setValue("Value B.2");
+          property1.setValue("Value A.2");
+          Property.batch(() -> property2.setValue("Value B.3"));
+          assertThat(observedValues).isEmpty();
+        });
+
+    assertThat(observedValues).containsExactly("Value B.3", "Value A.2").inOrder();
+  }
+
+  @Test
+  public void batchNotifiesAllPropertiesIfListenerThrows() {
+    Property<String> property1 = new Property<>("Value A");
+    Property<String> property2 = new Property<>("Value B");
+    Property<String> property3 = new Property<>("Value C");
+    List<String> observedValues = new ArrayList<>();
+    property1.addListener(
+        (observable, oldValue, newValue) -> {
+          throw new IllegalStateException("first");
+        });
+    property2.addListener((observable, oldValue, newValue) -> observedValues.add(newValue));
+    property3.addListener(
+        (observable, oldValue, newValue) -> {
+          throw new IllegalArgumentException("second");
+        });
+
+    IllegalStateException thrown =
+        Assert.assertThrows(
+            IllegalStateException.class,
+            () ->
+                Property.batch(
+                    () -> {
+                      property1.setValue("Value A.2");
+                      property2.setValue("Value B.2");
+                      property3.setValue("Value C.2");
+                    }));
+
+    assertThat(thrown).hasMessageThat().isEqualTo("first");
+    assertThat(thrown.getSuppressed()).hasLength(1);
+    assertThat(observedValues).containsExactly("Value B.2");
+  }
 }
@@ -0,0 +1,87 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.ui.properties;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link WeakInvalidationListener}. */
+@RunWith(JUnit4.class)
+public class WeakInvalidationListenerTest {
+
+  @Test
+  public void referencedListenerIsTriggered() {
+    Property<String> property = new Property<>("InitialValue");
+    List<String> observedValues = new ArrayList<>();
+    InvalidationListener<String> listener = observable -> observedValues.add(observable.getValue());
+    property.addWeakListener(listener);
+
+    property.setValue("DifferentValue");
+
+    assertThat(observedValues).containsExactly("DifferentValue");
+  }
+
+  @Test
+  public void collectedListenerIsRemovedOnNextUpdate() {
+    List<String> observedValues = new ArrayList<>();
+    InvalidationListener<String> listener = observable -> observedValues.add(observable.getValue());
+    WeakInvalidationListener<String> weakListener = new WeakInvalidationListener<>(listener);
+    List<InvalidationListener<? super String>> removedListeners = new ArrayList<>();
+    RecordingProperty recordingProperty = new RecordingProperty(removedListeners);
+    recordingProperty.addListener(weakListener);
+
+    WeakReference<Object> reference = new WeakReference<>(listener);
+    listener = null;
+    collect(reference);
+    recordingProperty.setValue("DifferentValue");
+
+    assertThat(weakListener.wasGarbageCollected()).isTrue();
+    assertThat(removedListeners).containsExactly(weakListener);
+    assertThat(observedValues).isEmpty();
+  }
+
+  /** A {@link Property} recording the removal of listeners. */
+  private static final class RecordingProperty extends Property<String> {
+    private final List<InvalidationListener<? super String>> removedListeners;
+
+    RecordingProperty(List<InvalidationListener<? super String>> removedListeners) {
+      super("InitialValue");
+      this.removedListeners = removedListeners;
+    }
+
+    @Override
+    public void removeListener(InvalidationListener<? super String> listener) {
+      removedListeners.add(listener);
+      super.removeListener(listener);
+    }
+  }
+
+  private static void collect(WeakReference<?> reference) {
+    for (int i = 0; i < 100 && reference.get() != null; i++) {
+      System.gc();
+    }
+    assertThat(reference.get()).isNull();
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.ui.templates;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.idea.common.ui.properties.Property;
+import com.intellij.openapi.Disposable;
+import java.awt.event.HierarchyEvent;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link AbstractView}. */
+@RunWith(JUnit4.class)
+public class AbstractViewTest {
+
+  /** A label whose showing state is controlled by the test, as there's no screen. */
+  private static final class TestLabel extends JLabel {
+    boolean showing;
+
+    @Override
+    public boolean isShowing() {
+      return showing;
+    }
+  }
+
+  private final Property<String> model = new Property<>("a");
+  private final List<String> events = new ArrayList<>();
+
+  private final AbstractView<TestLabel> view =
+      new AbstractView<TestLabel>() {
+        @Override
+        protected TestLabel createComponent() {
+          TestLabel label = new TestLabel();
+          bindToView(
+              model,
+              value -> {
+                events.add("push " + value);
+                label.setText(value);
+              });
+          return label;
+        }
+
+        @Override
+        protected void bind() {
+          events.add("bind");
+        }
+
+        @Override
+        protected void unbind() {
+          events.add("unbind");
+        }
+      };
+
+  private void fireShowingChanged(TestLabel label, boolean showing) {
+    label.showing = showing;
+    label.dispatchEvent(
+        new HierarchyEvent(
+            label,
+            HierarchyEvent.HIERARCHY_CHANGED,
+            label,
+            new JPanel(),
+            HierarchyEvent.SHOWING_CHANGED));
+  }
+
+  @Test
+  public void bindsOnlyWhileShowing() {
+    TestLabel label = view.getComponent();
+    assertThat(view.isBound()).isFalse();
+    assertThat(events).isEmpty();
+
+    fireShowingChanged(label, true);
+    assertThat(view.isBound()).isTrue();
+    assertThat(label.getText()).isEqualTo("a");
+
+    model.setValue("b");
+    fireShowingChanged(label, false);
+    model.setValue("c");
+
+    assertThat(view.isBound()).isFalse();
+    assertThat(label.getText()).isEqualTo("b");
+    assertThat(events).containsExactly("push a", "bind", "push b", "unbind").inOrder();
+  }
+
+  @Test
+  public void otherHierarchyChangesDontRebind() {
+    TestLabel label = view.getComponent();
+    fireShowingChanged(label, true);
+
+    label.dispatchEvent(
+        new HierarchyEvent(
+            label,
+            HierarchyEvent.HIERARCHY_CHANGED,
+            label,
+            new JPanel(),
+            HierarchyEvent.PARENT_CHANGED));
+    view.setShowing(true);
+
+    assertThat(events).containsExactly("push a", "bind").inOrder();
+  }
+
+  @Test
+  public void retainedBindingOutlivesShowing() {
+    view.getComponent();
+    view.setShowing(true);
+    Disposable retained = view.retainBinding();
+
+    view.setShowing(false);
+    assertThat(view.isBound()).isTrue();
+    model.setValue("b");
+
+    retained.dispose();
+    assertThat(view.isBound()).isFalse();
+    assertThat(events).containsExactly("push a", "bind", "push b", "unbind").inOrder();
+  }
+
+  @Test
+  public void retainBindsWithoutShowing() {
+    view.getComponent();
+
+    Disposable retained = view.retainBinding();
+    view.setShowing(true);
+    view.setShowing(false);
+
+    assertThat(view.isBound()).isTrue();
+    assertThat(events).containsExactly("push a", "bind");
+
+    retained.dispose();
+    assertThat(events).containsExactly("push a", "bind", "unbind").inOrder();
+  }
+
+  @Test
+  public void releasingTwiceHasNoEffect() {
+    view.getComponent();
+    Disposable first = view.retainBinding();
+    Disposable second = view.retainBinding();
+
+    first.dispose();
+    first.dispose();
+
+    assertThat(view.isBound()).isTrue();
+    second.dispose();
+    assertThat(view.isBound()).isFalse();
+  }
+
+  @Test
+  public void rebindPushesOnlyChangedValues() {
+    view.getComponent();
+    view.setShowing(true);
+    view.setShowing(false);
+    model.setValue("b");
+    model.setValue("a");
+
+    view.setShowing(true);
+
+    assertThat(events).containsExactly("push a", "bind", "unbind", "bind").inOrder();
+
+    view.setShowing(false);
+    model.setValue("c");
+    view.setShowing(true);
+
+    assertThat(events)
+        .containsExactly("push a", "bind", "unbind", "bind", "unbind", "push c", "bind")
+        .inOrder();
+  }
+
+  @Test
+  public void bindToViewWhileBoundPushesImmediately() {
+    TestLabel label = view.getComponent();
+    view.setShowing(true);
+    Property<Integer> other = new Property<>(1);
+    List<Integer> pushed = new ArrayList<>();
+
+    view.bindToView(other, pushed::add);
+    other.setValue(2);
+
+    assertThat(pushed).containsExactly(1, 2).inOrder();
+    assertThat(label.getText()).isEqualTo("a");
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.async.process;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.intellij.util.EnvironmentUtil;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * The environment processes are started with: the shell environment from {@link EnvironmentUtil},
+ * rather than the environment of the IDE process. See GeneralCommandLine#ParentEnvironmentType for
+ * an explanation of why we do this.
+ *
+ * <p>A {@link ProcessBuilder} starts out with the environment of the IDE process, so this is kept
+ * as the difference between that and the shell environment, and only the difference is applied to
+ * each process. It's computed once and recomputed when the content of {@link
+ * EnvironmentUtil#getEnvironmentMap()} changes, i.e. when the shell environment is loaded or
+ * reloaded. The map returned may be a new instance with the same content, so it's compared by
+ * content rather than by identity.
+ */
+final class BaseEnvironment {
+
+  @Nullable private static volatile BaseEnvironment cached;
+
+  // the shell environment this was computed from
+  private final Map<String, String> shellEnvironment;
+  private final ImmutableList<String> removedVariables;
+  private final ImmutableMap<String, String> changedVariables;
+
+  private BaseEnvironment(
+      Map<String, String> shellEnvironment, Map<String, String> processEnvironment) {
+    this.shellEnvironment = shellEnvironment;
+    ImmutableList.Builder<String> removed = ImmutableList.builder();
+    for (String name : processEnvironment.keySet()) {
+      if (!shellEnvironment.containsKey(name)) {
+        removed.add(name);
+      }
+    }
+    ImmutableMap.Builder<String, String> changed = ImmutableMap.builder();
+    for (Map.Entry<String, String> entry : shellEnvironment.entrySet()) {
+      if (!Objects.equals(processEnvironment.get(entry.getKey()), entry.getValue())) {
+        changed.put(entry);
+      }
+    }
+    this.removedVariables = removed.build();
+    this.changedVariables = changed.build();
+  }
+
+  /** Returns the base environment for the current shell environment. */
+  static BaseEnvironment get() {
+    return get(EnvironmentUtil.getEnvironmentMap(), System.getenv());
+  }
+
+  @VisibleForTesting
+  static BaseEnvironment get(
+      Map<String, String> shellEnvironment, Map<String, String> processEnvironment) {
+    BaseEnvironment base = cached;
+    if (base == null || !base.isFor(shellEnvironment)) {
+      base = new BaseEnvironment(shellEnvironment, processEnvironment);
+      cached = base;
+    }
+    return base;
+  }
+
+  private boolean isFor(Map<String, String> shellEnvironment) {
+    // the identity check is the common case, the map is usually cached by EnvironmentUtil
+    return this.shellEnvironment == shellEnvironment
+        || this.shellEnvironment.equals(shellEnvironment);
+  }
+
+  /**
+   * Turns {@code environment}, which must contain the environment of the IDE process as {@link
+   * ProcessBuilder#environment()} does initially, into the base environment.
+   */
+  void applyTo(Map<String, String> environment) {
+    for (String name : removedVariables) {
+      environment.remove(name);
+    }
+    environment.putAll(changedVariables);
+  }
+}
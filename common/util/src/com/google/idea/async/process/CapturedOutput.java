@@ -0,0 +1,148 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.async.process;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+
+/**
+ * The output captured by an {@link OutputCapture}, held partly in memory and partly in a temporary
+ * file. Close it to delete the file.
+ */
+public final class CapturedOutput implements Closeable {
+
+  private final List<byte[]> chunks;
+  private final int memorySize;
+  @Nullable private final Path spillFile;
+  private final long size;
+  // whether the bytes held in memory have been written to the start of the spill file
+  private boolean spillFileComplete;
+
+  CapturedOutput(List<byte[]> chunks, int memorySize, @Nullable Path spillFile, long spilledSize) {
+    this.chunks = chunks;
+    this.memorySize = memorySize;
+    this.spillFile = spillFile;
+    this.size = memorySize + spilledSize;
+  }
+
+  /** Returns the number of captured bytes. */
+  public long size() {
+    return size;
+  }
+
+  /** Returns whether part of the output was written to a temporary file. */
+  public boolean isSpilled() {
+    return spillFile != null;
+  }
+
+  /** Opens a stream reading the captured bytes. The caller is responsible for closing it. */
+  public InputStream openStream() throws IOException {
+    List<InputStream> streams = new ArrayList<>(chunks.size() + 1);
+    int remaining = memorySize;
+    for (byte[] chunk : chunks) {
+      int length = Math.min(chunk.length, remaining);
+      streams.add(new ByteArrayInputStream(chunk, 0, length));
+      remaining -= length;
+    }
+    if (spillFile != null) {
+      FileChannel channel = FileChannel.open(spillFile, StandardOpenOption.READ);
+      streams.add(Channels.newInputStream(channel.position(memorySize)));
+    }
+    return new SequenceInputStream(Collections.enumeration(streams));
+  }
+
+  /**
+   * Returns a read-only buffer with the captured bytes. If the output was spilled, the buffer is
+   * memory-mapped from the temporary file rather than copied onto the heap.
+   *
+   * @throws IOException if the output is larger than a buffer can hold, or can't be read
+   */
+  public synchronized ByteBuffer asByteBuffer() throws IOException {
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("Output of " + size + " bytes is too large for a buffer");
+    }
+    if (spillFile == null) {
+      if (chunks.size() == 1) {
+        return ByteBuffer.wrap(chunks.get(0), 0, memorySize).asReadOnlyBuffer();
+      }
+      try (InputStream stream = openStream()) {
+        return ByteBuffer.wrap(stream.readAllBytes()).asReadOnlyBuffer();
+      }
+    }
+    if (!spillFileComplete) {
+      try (FileChannel channel = FileChannel.open(spillFile, StandardOpenOption.WRITE)) {
+        long position = 0;
+        for (byte[] chunk : chunks) {
+          ByteBuffer buffer = ByteBuffer.wrap(chunk);
+          while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+          }
+        }
+      }
+      spillFileComplete = true;
+    }
+    try (FileChannel channel = FileChannel.open(spillFile, StandardOpenOption.READ)) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+  }
+
+  /**
+   * Returns the lines of the captured output, decoded with {@code charset}. The stream must be
+   * closed to release the underlying file.
+   */
+  public Stream<String> lines(Charset charset) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(openStream(), charset));
+    return reader
+        .lines()
+        .onClose(
+            () -> {
+              try {
+                reader.close();
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+  }
+
+  /** Deletes the temporary file, if any. */
+  @Override
+  public void close() throws IOException {
+    if (spillFile != null) {
+      Files.deleteIfExists(spillFile);
+    }
+  }
+}
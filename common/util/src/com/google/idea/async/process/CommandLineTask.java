@@ -18,6 +18,8 @@
  */
 package com.google.idea.async.process;
 
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -25,16 +27,21 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.google.idea.common.util.ConcurrencyUtil;
 import com.intellij.openapi.diagnostic.Logger;
-import com.intellij.util.EnvironmentUtil;
 import com.intellij.util.execution.ParametersListUtil;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.time.Duration;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
@@ -49,6 +56,8 @@ public interface CommandLineTask {
     private final Map<String, String> environmentVariables = Maps.newHashMap();
     @VisibleForTesting @Nullable public OutputStream stdout;
     @VisibleForTesting @Nullable public OutputStream stderr;
+    @Nullable private File stdoutFile;
+    @Nullable private File stderrFile;
     private boolean redirectErrorStream = false;
     private Duration timeout;
 
@@ -95,12 +104,56 @@ public interface CommandLineTask {
     @CanIgnoreReturnValue
     public Builder stdout(@Nullable OutputStream stdout) {
       this.stdout = stdout;
+      this.stdoutFile = null;
       return this;
     }
 
     @CanIgnoreReturnValue
     public Builder stderr(@Nullable OutputStream stderr) {
       this.stderr = stderr;
+      this.stderrFile = null;
+      return this;
+    }
+
+    /**
+     * Passes each line of the standard output to {@code consumer} as it's produced, see {@link
+     * LineOutputStream}. The output is decoded as UTF-8.
+     */
+    @CanIgnoreReturnValue
+    public Builder stdoutLines(LineOutputStream.LineConsumer consumer) {
+      return stdout(new LineOutputStream(UTF_8, consumer));
+    }
+
+    /**
+     * Passes each line of the standard error to {@code consumer} as it's produced, see {@link
+     * LineOutputStream}. The output is decoded as UTF-8.
+     */
+    @CanIgnoreReturnValue
+    public Builder stderrLines(LineOutputStream.LineConsumer consumer) {
+      return stderr(new LineOutputStream(UTF_8, consumer));
+    }
+
+    /**
+     * Writes the standard output to {@code file}, replacing its contents. The process writes to the
+     * file directly, without the output passing through the JVM; prefer this to passing a {@link
+     * java.io.FileOutputStream} to {@link #stdout(OutputStream)}.
+     */
+    @CanIgnoreReturnValue
+    public Builder stdoutFile(File file) {
+      this.stdoutFile = file;
+      this.stdout = null;
+      return this;
+    }
+
+    /**
+     * Writes the standard error to {@code file}, replacing its contents, see {@link
+     * #stdoutFile(File)}. Ignored if the standard error is {@linkplain #redirectStderr redirected}
+     * to the standard output.
+     */
+    @CanIgnoreReturnValue
+    public Builder stderrFile(File file) {
+      this.stderrFile = file;
+      this.stderr = null;
       return this;
     }
 
@@ -124,17 +177,12 @@ public interface CommandLineTask {
           redirectErrorStream,
           stdout,
           stderr,
+          stdoutFile,
+          stderrFile,
           workingDirectory);
     }
   }
 
-  // See GeneralCommandLine#ParentEnvironmentType for an explanation of why we do this.
-
-  private static void initializeEnvironment(Map<String, String> envMap) {
-    envMap.clear();
-    envMap.putAll(EnvironmentUtil.getEnvironmentMap());
-  }
-
   /**
    * Runs the configured command.
    *
@@ -145,6 +193,17 @@ public interface CommandLineTask {
    */
   int run() throws IOException, InterruptedException, TimeoutException;
 
+  /**
+   * Starts the configured command without blocking the calling thread.
+   *
+   * <p>The returned future completes once the process has exited and its output has been
+   * forwarded. Cancelling it destroys the process. If a timeout is configured, the future fails
+   * with a {@link TimeoutException} and the process is destroyed when it elapses. In both cases,
+   * the output streams are only closed once the remaining output of the process was forwarded. If
+   * the process can't be started, the future fails with the {@link IOException}.
+   */
+  ListenableFuture<ProcessResult> runAsync();
+
   /** A representation of a configured CLI command. */
   class Runner implements CommandLineTask {
     private static final Logger logger = Logger.getInstance(CommandLineTask.class);
@@ -155,6 +214,8 @@ public interface CommandLineTask {
     private final boolean redirectErrorStream;
     private final OutputStream stdout;
     private final OutputStream stderr;
+    @Nullable private final File stdoutFile;
+    @Nullable private final File stderrFile;
     private final File workingDirectory;
 
     public Runner(
@@ -165,12 +226,42 @@ public interface CommandLineTask {
         OutputStream stdout,
         OutputStream stderr,
         File workingDirectory) {
+      this(
+          command,
+          environmentVariables,
+          timeout,
+          redirectErrorStream,
+          stdout,
+          stderr,
+          null,
+          null,
+          workingDirectory);
+    }
+
+    /**
+     * @param stdoutFile if not null, the file the process writes its standard output to directly,
+     *     instead of {@code stdout}
+     * @param stderrFile if not null, the file the process writes its standard error to directly,
+     *     instead of {@code stderr}
+     */
+    public Runner(
+        ImmutableList<String> command,
+        ImmutableMap<String, String> environmentVariables,
+        @Nullable Duration timeout,
+        boolean redirectErrorStream,
+        OutputStream stdout,
+        OutputStream stderr,
+        @Nullable File stdoutFile,
+        @Nullable File stderrFile,
+        File workingDirectory) {
       this.command = command;
       this.environmentVariables = environmentVariables;
       this.timeout = timeout;
       this.redirectErrorStream = redirectErrorStream;
       this.stdout = stdout != null ? stdout : ByteStreams.nullOutputStream();
       this.stderr = stderr != null ? stderr : ByteStreams.nullOutputStream();
+      this.stdoutFile = stdoutFile;
+      this.stderrFile = stderrFile;
       this.workingDirectory = workingDirectory;
     }
 
@@ -182,9 +273,7 @@ public interface CommandLineTask {
       }
     }
 
-    @Override
-    public int run() throws IOException, InterruptedException, TimeoutException {
-
+    private ProcessBuilder createProcessBuilder() {
       String logCommand = ParametersListUtil.join(command);
       if (logCommand.length() > 2000) {
         logCommand = logCommand.substring(0, 2000) + " <truncated>";
@@ -192,17 +281,45 @@ public interface CommandLineTask {
       logger.info(
           String.format("Running task:\n  %s\n  with PWD: %s", logCommand, workingDirectory));
 
+      ProcessBuilder builder =
+          new ProcessBuilder().command(command).redirectErrorStream(redirectErrorStream);
+      builder.directory(workingDirectory);
+      if (stdoutFile != null) {
+        builder.redirectOutput(stdoutFile);
+      }
+      if (stderrFile != null && !redirectErrorStream) {
+        builder.redirectError(stderrFile);
+      }
+
+      Map<String, String> env = builder.environment();
+      BaseEnvironment.get().applyTo(env);
+      for (Map.Entry<String, String> entry : environmentVariables.entrySet()) {
+        env.put(entry.getKey(), entry.getValue());
+      }
+      env.put("PWD", workingDirectory.getPath());
+      return builder;
+    }
+
+    private static ListenableFuture<?> forward(
+        InputStream input, OutputStream output, @Nullable File redirect) {
+      // the process writes to the file itself, there's nothing to forward
+      return redirect != null
+          ? Futures.immediateVoidFuture()
+          : ProcessUtil.forwardAsync(input, output);
+    }
+
+    private static void removeShutdownHook(Thread shutdownHook) {
       try {
-        ProcessBuilder builder =
-            new ProcessBuilder().command(command).redirectErrorStream(redirectErrorStream);
-        builder.directory(workingDirectory);
-
-        Map<String, String> env = builder.environment();
-        initializeEnvironment(env);
-        for (Map.Entry<String, String> entry : environmentVariables.entrySet()) {
-          env.put(entry.getKey(), entry.getValue());
-        }
-        env.put("PWD", workingDirectory.getPath());
+        Runtime.getRuntime().removeShutdownHook(shutdownHook);
+      } catch (IllegalStateException e) {
+        // we can't remove a shutdown hook if we are shutting down, do nothing about it
+      }
+    }
+
+    @Override
+    public int run() throws IOException, InterruptedException, TimeoutException {
+      try {
+        ProcessBuilder builder = createProcessBuilder();
 
         try {
           final Process process = builder.start();
@@ -212,10 +329,10 @@ public interface CommandLineTask {
             // These tasks are non-interactive, so close the stream connected to the process's
             // input.
             process.getOutputStream().close();
-            Thread stdoutThread = ProcessUtil.forwardAsync(process.getInputStream(), stdout);
-            Thread stderrThread = null;
+            Future<?> stdoutForwarding = forward(process.getInputStream(), stdout, stdoutFile);
+            Future<?> stderrForwarding = null;
             if (!redirectErrorStream) {
-              stderrThread = ProcessUtil.forwardAsync(process.getErrorStream(), stderr);
+              stderrForwarding = forward(process.getErrorStream(), stderr, stderrFile);
             }
             if (timeout != null) {
               if (!process.waitFor(timeout.toMillis(), MILLISECONDS)) {
@@ -224,20 +341,16 @@ public interface CommandLineTask {
             } else {
               process.waitFor();
             }
-            stdoutThread.join();
+            ProcessUtil.join(stdoutForwarding);
             if (!redirectErrorStream) {
-              stderrThread.join();
+              ProcessUtil.join(stderrForwarding);
             }
             return process.exitValue();
           } catch (InterruptedException | TimeoutException e) {
             process.destroy();
             throw e;
           } finally {
-            try {
-              Runtime.getRuntime().removeShutdownHook(shutdownHook);
-            } catch (IllegalStateException e) {
-              // we can't remove a shutdown hook if we are shutting down, do nothing about it
-            }
+            removeShutdownHook(shutdownHook);
           }
         } catch (IOException e) {
           logger.warn(e);
@@ -248,6 +361,72 @@ public interface CommandLineTask {
         closeQuietly(stderr);
       }
     }
+
+    @Override
+    public ListenableFuture<ProcessResult> runAsync() {
+      final Process process;
+      try {
+        process = createProcessBuilder().start();
+        // These tasks are non-interactive, so close the stream connected to the process's input.
+        process.getOutputStream().close();
+      } catch (IOException e) {
+        logger.warn(e);
+        closeQuietly(stdout);
+        closeQuietly(stderr);
+        return Futures.immediateFailedFuture(e);
+      }
+      Thread shutdownHook = new Thread(process::destroy);
+      Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+      SettableFuture<Process> exited = SettableFuture.create();
+      process
+          .onExit()
+          .whenComplete(
+              (exitedProcess, error) -> {
+                if (error != null) {
+                  exited.setException(error);
+                } else {
+                  exited.set(exitedProcess);
+                }
+              });
+      ListenableFuture<?> stdoutForwarding = forward(process.getInputStream(), stdout, stdoutFile);
+      ListenableFuture<?> stderrForwarding =
+          redirectErrorStream
+              ? Futures.immediateVoidFuture()
+              : forward(process.getErrorStream(), stderr, stderrFile);
+
+      // Only close the streams once nothing is written to them anymore. After the process was
+      // destroyed, the forwarding tasks still drain its pipes.
+      ListenableFuture<?> forwarding =
+          Futures.whenAllComplete(stdoutForwarding, stderrForwarding)
+              .run(
+                  () -> {
+                    closeQuietly(stdout);
+                    closeQuietly(stderr);
+                  },
+                  directExecutor());
+
+      // Forwarding errors are logged by ProcessUtil, like in run(), so only the exit matters here.
+      // Cancelling the result must not cancel the forwarding, or the streams would be closed early.
+      ListenableFuture<ProcessResult> result =
+          Futures.whenAllComplete(exited, Futures.nonCancellationPropagating(forwarding))
+              .call(() -> new ProcessResult(process.exitValue()), directExecutor());
+      result.addListener(
+          () -> {
+            if (result.isCancelled()) {
+              // Process.destroy() would also close the pipes, dropping the output still in them.
+              process.toHandle().destroy();
+            }
+            removeShutdownHook(shutdownHook);
+          },
+          directExecutor());
+      if (timeout == null) {
+        return result;
+      }
+      // Cancels result on timeout, which destroys the process.
+      return Futures.withTimeout(
+          result, timeout.toMillis(), MILLISECONDS, ConcurrencyUtil.getAppExecutorService());
+    }
   }
 
   static Builder builder() {
@@ -0,0 +1,210 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.async.process;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * An {@link OutputStream} which decodes the bytes written to it and passes each line to a {@link
+ * LineConsumer}, for parsing the output of a {@link CommandLineTask} as it's produced.
+ *
+ * <p>Bytes are decoded incrementally into a reusable buffer, so memory use depends on the length
+ * of the longest line rather than the size of the output. Lines are passed to the consumer on the
+ * writing thread; while the consumer is busy, the process output stays in the pipe and the process
+ * blocks once the pipe is full.
+ *
+ * <p>Malformed input is replaced with the charset's replacement character. The last line is passed
+ * to the consumer on {@link #close()} if it isn't terminated.
+ */
+public final class LineOutputStream extends OutputStream {
+
+  /** Receives the lines of an output. */
+  @FunctionalInterface
+  public interface LineConsumer {
+    /**
+     * Called with each line, without its line terminator ({@code \n} or {@code \r\n}).
+     *
+     * <p>{@code line} is a view of a reused buffer, which is only valid until this method returns.
+     * Call {@link CharSequence#toString()} to keep it.
+     */
+    void accept(CharSequence line) throws IOException;
+  }
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final LineConsumer consumer;
+  private final CharsetDecoder decoder;
+  private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+  private final LineView line = new LineView();
+  // in write mode; holds the decoded characters of the current, unterminated line
+  private CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+  // the number of characters in chars already searched for a line terminator
+  private int scanned;
+  private boolean closed;
+
+  public LineOutputStream(Charset charset, LineConsumer consumer) {
+    this.consumer = consumer;
+    this.decoder =
+        charset
+            .newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[] {(byte) b}, 0, 1);
+  }
+
+  @Override
+  public synchronized void write(byte[] b, int off, int len) throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+    while (len > 0) {
+      int count = Math.min(len, bytes.remaining());
+      bytes.put(b, off, count);
+      off += count;
+      len -= count;
+      bytes.flip();
+      decode(false);
+      bytes.compact();
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    bytes.flip();
+    decode(true);
+    while (true) {
+      int start = chars.position();
+      boolean overflow = decoder.flush(chars).isOverflow();
+      boolean progress = chars.position() > start;
+      emitLines();
+      if (!overflow) {
+        break;
+      }
+      if (!progress) {
+        grow();
+      }
+    }
+    if (chars.position() > 0) {
+      emit(chars.position());
+    }
+  }
+
+  private void decode(boolean endOfInput) throws IOException {
+    while (true) {
+      int start = chars.position();
+      boolean overflow = decoder.decode(bytes, chars, endOfInput).isOverflow();
+      boolean progress = chars.position() > start;
+      emitLines();
+      if (!overflow) {
+        return;
+      }
+      if (!progress) {
+        // The next character doesn't fit into the space left by the current line, which may be
+        // less than the buffer, e.g. a surrogate pair with a single char left.
+        grow();
+      }
+    }
+  }
+
+  private void emitLines() throws IOException {
+    char[] array = chars.array();
+    int end = chars.position();
+    int lineStart = 0;
+    for (int i = scanned; i < end; i++) {
+      if (array[i] == '\n') {
+        int lineEnd = i > lineStart && array[i - 1] == '\r' ? i - 1 : i;
+        line.set(array, lineStart, lineEnd - lineStart);
+        consumer.accept(line);
+        lineStart = i + 1;
+      }
+    }
+    if (lineStart > 0) {
+      System.arraycopy(array, lineStart, array, 0, end - lineStart);
+      chars.position(end - lineStart);
+    }
+    scanned = chars.position();
+  }
+
+  private void emit(int length) throws IOException {
+    line.set(chars.array(), 0, length);
+    consumer.accept(line);
+    chars.clear();
+    scanned = 0;
+  }
+
+  private void grow() {
+    CharBuffer larger = CharBuffer.allocate(chars.capacity() * 2);
+    chars.flip();
+    larger.put(chars);
+    chars = larger;
+  }
+
+  /** A reusable view of a range of a char array. */
+  private static final class LineView implements CharSequence {
+    private char[] array;
+    private int start;
+    private int length;
+
+    void set(char[] array, int start, int length) {
+      this.array = array;
+      this.start = start;
+      this.length = length;
+    }
+
+    @Override
+    public int length() {
+      return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+      if (index < 0 || index >= length) {
+        throw new IndexOutOfBoundsException(String.valueOf(index));
+      }
+      return array[start + index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      if (start < 0 || start > end || end > length) {
+        throw new IndexOutOfBoundsException(start + ", " + end);
+      }
+      return new String(array, this.start + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+      return new String(array, start, length);
+    }
+  }
+}
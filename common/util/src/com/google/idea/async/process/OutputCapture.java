@@ -0,0 +1,144 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.async.process;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * An {@link OutputStream} capturing the output of a {@link CommandLineTask} with bounded heap use.
+ *
+ * <p>The first bytes, up to the memory limit, are kept in memory; the rest is written to a
+ * temporary file. Once the stream has been closed, which {@link CommandLineTask} does when the
+ * process completes, the output is available from {@link #getOutput()}:
+ *
+ * <pre>{@code
+ * OutputCapture capture = OutputCapture.create();
+ * CommandLineTask.builder().args(...).stdout(capture).build().run();
+ * try (CapturedOutput output = capture.getOutput()) {
+ *   ...
+ * }
+ * }</pre>
+ */
+public final class OutputCapture extends OutputStream {
+
+  /** The memory limit used by {@link #create()}. */
+  public static final int DEFAULT_MEMORY_LIMIT = 16 * 1024 * 1024;
+
+  private static final int CHUNK_SIZE = 64 * 1024;
+  private static final int SPILL_BUFFER_SIZE = 64 * 1024;
+
+  private final int memoryLimit;
+  // Allocated as needed, so small outputs don't reserve the whole memory limit.
+  private final List<byte[]> chunks = new ArrayList<>();
+  private int memorySize;
+  @Nullable private Path spillFile;
+  @Nullable private OutputStream spillStream;
+  private long spilledSize;
+  @Nullable private CapturedOutput output;
+
+  private OutputCapture(int memoryLimit) {
+    this.memoryLimit = memoryLimit;
+  }
+
+  /** Creates a capture keeping up to {@link #DEFAULT_MEMORY_LIMIT} bytes in memory. */
+  public static OutputCapture create() {
+    return new OutputCapture(DEFAULT_MEMORY_LIMIT);
+  }
+
+  /** Creates a capture keeping up to {@code memoryLimit} bytes in memory. */
+  public static OutputCapture create(int memoryLimit) {
+    checkArgument(memoryLimit >= 0, "memoryLimit must not be negative: %s", memoryLimit);
+    return new OutputCapture(memoryLimit);
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[] {(byte) b}, 0, 1);
+  }
+
+  @Override
+  public synchronized void write(byte[] b, int off, int len) throws IOException {
+    if (output != null) {
+      throw new IOException("Stream closed");
+    }
+    while (len > 0 && memorySize < memoryLimit) {
+      int chunkIndex = memorySize / CHUNK_SIZE;
+      if (chunkIndex == chunks.size()) {
+        chunks.add(new byte[Math.min(CHUNK_SIZE, memoryLimit - chunkIndex * CHUNK_SIZE)]);
+      }
+      byte[] chunk = chunks.get(chunkIndex);
+      int chunkOffset = memorySize - chunkIndex * CHUNK_SIZE;
+      int count = Math.min(len, chunk.length - chunkOffset);
+      System.arraycopy(b, off, chunk, chunkOffset, count);
+      memorySize += count;
+      off += count;
+      len -= count;
+    }
+    if (len > 0) {
+      spillStream().write(b, off, len);
+      spilledSize += len;
+    }
+  }
+
+  private OutputStream spillStream() throws IOException {
+    if (spillStream == null) {
+      spillFile = Files.createTempFile("command-line-task", ".out");
+      // The spilled bytes are placed after the bytes kept in memory, so that CapturedOutput can
+      // complete the file in place if it needs to be mapped.
+      FileChannel channel = FileChannel.open(spillFile, StandardOpenOption.WRITE);
+      channel.position(memoryLimit);
+      spillStream = new BufferedOutputStream(Channels.newOutputStream(channel), SPILL_BUFFER_SIZE);
+    }
+    return spillStream;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (output != null) {
+      return;
+    }
+    if (spillStream != null) {
+      spillStream.close();
+    }
+    output = new CapturedOutput(chunks, memorySize, spillFile, spilledSize);
+  }
+
+  /**
+   * Returns the captured output.
+   *
+   * @throws IllegalStateException if this stream hasn't been closed yet
+   */
+  public synchronized CapturedOutput getOutput() {
+    checkState(output != null, "The output is only available once the stream is closed");
+    return output;
+  }
+}
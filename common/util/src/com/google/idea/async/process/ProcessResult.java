@@ -0,0 +1,43 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.async.process;
+
+/** The outcome of a {@link CommandLineTask} which ran to completion. */
+public final class ProcessResult {
+  private final int exitCode;
+
+  ProcessResult(int exitCode) {
+    this.exitCode = exitCode;
+  }
+
+  /** Returns the exit code of the process. */
+  public int exitCode() {
+    return exitCode;
+  }
+
+  /** Returns whether the process exited with code 0. */
+  public boolean isSuccess() {
+    return exitCode == 0;
+  }
+
+  @Override
+  public String toString() {
+    return "ProcessResult{exitCode=" + exitCode + "}";
+  }
+}
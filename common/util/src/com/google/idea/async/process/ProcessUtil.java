@@ -18,36 +18,103 @@
  */
 package com.google.idea.async.process;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.idea.common.util.ConcurrencyUtil;
 import com.intellij.openapi.diagnostic.Logger;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 
 class ProcessUtil {
   private static final Logger logger = Logger.getInstance(ProcessUtil.class);
 
-  public static Thread forwardAsync(final InputStream input, final OutputStream output) {
-    Thread thread =
-        new Thread(
-            new Runnable() {
-              @Override
-              public void run() {
-                int bufferSize = 4096;
-                byte[] buffer = new byte[bufferSize];
-
-                int read = 0;
-                try {
-                  read = input.read(buffer);
-                  while (read != -1) {
-                    output.write(buffer, 0, read);
-                    read = input.read(buffer);
-                  }
-                } catch (IOException e) {
-                  logger.warn("Error redirecting output", e);
-                }
-              }
-            });
-    thread.start();
-    return thread;
+  // Threads kept by the fallback pool for reuse. Forwarding beyond this runs on a dedicated thread
+  // rather than being queued, since a queued copy could deadlock a process blocked on a full pipe.
+  // The number of forwarding threads is therefore unbounded, one per stream forwarded at a time.
+  private static final int MAX_POOLED_FORWARDERS = 64;
+
+  private static final ListeningExecutorService forwardingExecutor =
+      MoreExecutors.listeningDecorator(createForwardingExecutor());
+
+  /**
+   * Copies {@code input} to {@code output} on a shared executor until the end of {@code input}.
+   * Errors are logged, not propagated; use {@link #join} to wait for the copy to complete.
+   */
+  public static ListenableFuture<?> forwardAsync(
+      final InputStream input, final OutputStream output) {
+    return forwardingExecutor.submit(
+        () -> {
+          int bufferSize = 4096;
+          byte[] buffer = new byte[bufferSize];
+
+          int read = 0;
+          try {
+            read = input.read(buffer);
+            while (read != -1) {
+              output.write(buffer, 0, read);
+              read = input.read(buffer);
+            }
+          } catch (IOException e) {
+            logger.warn("Error redirecting output", e);
+          }
+        });
+  }
+
+  /** Waits for a copy started by {@link #forwardAsync} to complete. */
+  public static void join(Future<?> forwarding) throws InterruptedException {
+    try {
+      forwarding.get();
+    } catch (ExecutionException e) {
+      logger.warn("Error redirecting output", e.getCause());
+    }
+  }
+
+  /**
+   * Uses a virtual thread per task where available (JDK 21+), and a daemon thread per task
+   * otherwise, reusing up to {@link #MAX_POOLED_FORWARDERS} of them.
+   */
+  private static ExecutorService createForwardingExecutor() {
+    ExecutorService executor = newVirtualThreadPerTaskExecutor();
+    return executor != null ? executor : newPooledExecutor(MAX_POOLED_FORWARDERS);
+  }
+
+  @Nullable
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService)
+          Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns an executor which runs each task on its own daemon thread right away, never queueing
+   * it. Up to {@code maxPooledThreads} threads are pooled and reused; tasks beyond that run on a
+   * new, unpooled thread each. The total number of threads is not bounded.
+   */
+  @VisibleForTesting
+  static ThreadPoolExecutor newPooledExecutor(int maxPooledThreads) {
+    ThreadFactory threadFactory = ConcurrencyUtil.namedDaemonThreadPoolFactory(ProcessUtil.class);
+    return new ThreadPoolExecutor(
+        0,
+        maxPooledThreads,
+        60L,
+        TimeUnit.SECONDS,
+        new SynchronousQueue<>(),
+        threadFactory,
+        (task, pool) -> threadFactory.newThread(task).start());
   }
 }
@@ -0,0 +1,114 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.async.process;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.idea.async.process.CommandLineTask;
+import com.intellij.openapi.diagnostic.Logger;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Compares the throughput of writing process output to a file through {@link
+ * CommandLineTask.Builder#stdout} with a {@link FileOutputStream}, which copies it through the JVM,
+ * and through {@link CommandLineTask.Builder#stdoutFile}, which lets the process write the file.
+ *
+ * <p>The output size defaults to 256 MB and can be changed with {@code
+ * -Dprocess.benchmark.megabytes}. Results are logged, and written as JSON to {@code
+ * TEST_UNDECLARED_OUTPUTS_DIR} when running under bazel.
+ */
+@RunWith(JUnit4.class)
+public class OutputRedirectionBenchmarkTest {
+  private static final Logger logger = Logger.getInstance(OutputRedirectionBenchmarkTest.class);
+
+  private static final int MEGABYTES = Integer.getInteger("process.benchmark.megabytes", 256);
+  private static final int WARMUP = 1;
+  private static final int ITERATIONS = 3;
+
+  private File output;
+
+  @Before
+  public void createOutputFile() throws IOException {
+    output = File.createTempFile("benchmark", ".out");
+  }
+
+  @After
+  public void deleteOutputFile() {
+    output.delete();
+  }
+
+  @Test
+  public void compareForwardingWithRedirection() throws Exception {
+    double forwarding =
+        measure(() -> builder().stdout(new FileOutputStream(output)).build().run());
+    double redirection = measure(() -> builder().stdoutFile(output).build().run());
+
+    String report =
+        String.format(
+            Locale.ROOT,
+            "[{\"name\": \"forwarding\", \"megabytesPerSecond\": %.1f},"
+                + " {\"name\": \"redirection\", \"megabytesPerSecond\": %.1f}]",
+            forwarding,
+            redirection);
+    logger.info("Output redirection throughput: " + report);
+    String outputsDir = System.getenv("TEST_UNDECLARED_OUTPUTS_DIR");
+    if (outputsDir != null) {
+      Files.writeString(
+          Path.of(outputsDir, "output_redirection_benchmark.json"),
+          report,
+          StandardCharsets.UTF_8);
+    }
+  }
+
+  private static CommandLineTask.Builder builder() {
+    return CommandLineTask.builder()
+        .args("bash")
+        .arg("-c")
+        .arg("head -c " + MEGABYTES + "M /dev/zero");
+  }
+
+  /** Runs the task and returns the throughput in MB/s. */
+  private double measure(TaskRun run) throws Exception {
+    for (int i = 0; i < WARMUP; i++) {
+      assertThat(run.run()).isEqualTo(0);
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      assertThat(run.run()).isEqualTo(0);
+      assertThat(output.length()).isEqualTo(MEGABYTES * 1024L * 1024L);
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+    return MEGABYTES * ITERATIONS / seconds;
+  }
+
+  private interface TaskRun {
+    int run() throws Exception;
+  }
+}
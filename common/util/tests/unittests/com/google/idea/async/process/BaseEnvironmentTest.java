@@ -0,0 +1,65 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.async.process;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link BaseEnvironment}. */
+@RunWith(JUnit4.class)
+public class BaseEnvironmentTest {
+
+  private static final ImmutableMap<String, String> PROCESS_ENVIRONMENT =
+      ImmutableMap.of("PATH", "/usr/bin", "IDE_ONLY", "1");
+
+  @Test
+  public void repeatedCallsReturnTheSameInstance() {
+    assertThat(BaseEnvironment.get()).isSameInstanceAs(BaseEnvironment.get());
+  }
+
+  @Test
+  public void equalShellEnvironmentReusesInstance() {
+    Map<String, String> shell = ImmutableMap.of("PATH", "/usr/bin:/opt/bin");
+
+    BaseEnvironment base = BaseEnvironment.get(shell, PROCESS_ENVIRONMENT);
+
+    assertThat(BaseEnvironment.get(new HashMap<>(shell), PROCESS_ENVIRONMENT))
+        .isSameInstanceAs(base);
+  }
+
+  @Test
+  public void changedShellEnvironmentIsRecomputed() {
+    BaseEnvironment base =
+        BaseEnvironment.get(ImmutableMap.of("PATH", "/usr/bin:/opt/bin"), PROCESS_ENVIRONMENT);
+
+    BaseEnvironment reloaded =
+        BaseEnvironment.get(ImmutableMap.of("PATH", "/usr/bin:/home/bin"), PROCESS_ENVIRONMENT);
+
+    assertThat(reloaded).isNotSameInstanceAs(base);
+    Map<String, String> environment = new HashMap<>(PROCESS_ENVIRONMENT);
+    reloaded.applyTo(environment);
+    assertThat(environment).containsExactly("PATH", "/usr/bin:/home/bin");
+  }
+}
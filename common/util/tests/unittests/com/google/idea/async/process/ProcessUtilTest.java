@@ -0,0 +1,69 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.async.process;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link ProcessUtil}. */
+@RunWith(JUnit4.class)
+public class ProcessUtilTest {
+
+  @Test
+  public void pooledExecutorRunsTasksBeyondPoolSizeOnOwnThreads() throws Exception {
+    int maxPooledThreads = 4;
+    int tasks = 10;
+    ThreadPoolExecutor executor = ProcessUtil.newPooledExecutor(maxPooledThreads);
+    CountDownLatch started = new CountDownLatch(tasks);
+    CountDownLatch release = new CountDownLatch(1);
+    Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    try {
+      for (int i = 0; i < tasks; i++) {
+        executor.execute(
+            () -> {
+              threads.add(Thread.currentThread());
+              started.countDown();
+              try {
+                release.await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            });
+      }
+
+      // none of the tasks is queued behind a blocked one
+      assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+      assertThat(threads).hasSize(tasks);
+      assertThat(executor.getLargestPoolSize()).isEqualTo(maxPooledThreads);
+      assertThat(executor.getQueue()).isEmpty();
+    } finally {
+      release.countDown();
+      executor.shutdown();
+    }
+    assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+  }
+}
@@ -20,13 +20,25 @@ package com.google.idea.common.async.process;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.idea.async.process.CommandLineTask;
+import com.google.idea.async.process.ProcessResult;
+import com.intellij.util.EnvironmentUtil;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -74,4 +86,211 @@ public class CommandLineTaskTest {
                 .build()
                 .run());
   }
+
+  @Test
+  public void stderr() throws IOException, InterruptedException, TimeoutException {
+    try (ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        ByteArrayOutputStream stderr = new ByteArrayOutputStream()) {
+      assertThat(
+              CommandLineTask.builder()
+                  .args("bash")
+                  .arg("-c")
+                  .arg("echo out; echo err >&2")
+                  .stdout(stdout)
+                  .stderr(stderr)
+                  .build()
+                  .run())
+          .isEqualTo(0);
+      assertThat(stdout.toString(StandardCharsets.UTF_8).trim()).isEqualTo("out");
+      assertThat(stderr.toString(StandardCharsets.UTF_8).trim()).isEqualTo("err");
+    }
+  }
+
+  @Test
+  public void concurrentRunsForwardAllOutput() throws Exception {
+    int tasks = 100;
+    ExecutorService executor = Executors.newFixedThreadPool(16);
+    try {
+      List<Future<String>> outputs = new ArrayList<>();
+      for (int i = 0; i < tasks; i++) {
+        String expected = "task " + i;
+        outputs.add(
+            executor.submit(
+                () -> {
+                  ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+                  CommandLineTask.builder()
+                      .args("bash")
+                      .arg("-c")
+                      .arg("echo '" + expected + "'; echo ignored >&2")
+                      .stdout(stdout)
+                      .build()
+                      .run();
+                  return stdout.toString(StandardCharsets.UTF_8).trim();
+                }));
+      }
+      for (int i = 0; i < tasks; i++) {
+        assertThat(outputs.get(i).get()).isEqualTo("task " + i);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void runAsync() throws Exception {
+    try (ByteArrayOutputStream stdout = new ByteArrayOutputStream()) {
+      ProcessResult result =
+          CommandLineTask.builder()
+              .args("bash")
+              .arg("-c")
+              .arg("echo 123; exit 3")
+              .stdout(stdout)
+              .build()
+              .runAsync()
+              .get();
+      assertThat(result.exitCode()).isEqualTo(3);
+      assertThat(stdout.toString(StandardCharsets.UTF_8).trim()).isEqualTo("123");
+    }
+  }
+
+  @Test
+  public void runAsyncTimeout() {
+    ListenableFuture<ProcessResult> result =
+        CommandLineTask.builder()
+            .args("bash")
+            .arg("-c")
+            .arg("sleep 10")
+            .timeout(Duration.ofMillis(100))
+            .build()
+            .runAsync();
+    ExecutionException e = Assert.assertThrows(ExecutionException.class, result::get);
+    assertThat(e).hasCauseThat().isInstanceOf(TimeoutException.class);
+  }
+
+  @Test
+  public void runAsyncCancelDestroysProcess() throws Exception {
+    ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+    ListenableFuture<ProcessResult> result =
+        CommandLineTask.builder()
+            .args("bash")
+            .arg("-c")
+            .arg("echo $$; exec sleep 10")
+            .stdout(stdout)
+            .build()
+            .runAsync();
+    long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+    while (!stdout.toString(StandardCharsets.UTF_8).contains("\n")) {
+      assertThat(System.nanoTime()).isLessThan(deadline);
+      Thread.sleep(10);
+    }
+    long pid = Long.parseLong(stdout.toString(StandardCharsets.UTF_8).trim());
+
+    result.cancel(true);
+
+    Optional<ProcessHandle> process = ProcessHandle.of(pid);
+    while (process.isPresent() && process.get().isAlive()) {
+      assertThat(System.nanoTime()).isLessThan(deadline);
+      Thread.sleep(10);
+    }
+  }
+
+  @Test
+  public void runAsyncCancelForwardsRemainingOutputBeforeClosing() throws Exception {
+    AtomicBoolean closed = new AtomicBoolean();
+    AtomicBoolean writtenAfterClose = new AtomicBoolean();
+    ByteArrayOutputStream stdout =
+        new ByteArrayOutputStream() {
+          @Override
+          public synchronized void write(byte[] b, int off, int len) {
+            writtenAfterClose.compareAndSet(false, closed.get());
+            super.write(b, off, len);
+          }
+
+          @Override
+          public void close() {
+            closed.set(true);
+          }
+        };
+    ListenableFuture<ProcessResult> result =
+        CommandLineTask.builder()
+            .args("bash")
+            .arg("-c")
+            .arg("trap 'echo terminated; exit' TERM; echo started; while true; do sleep 0.01; done")
+            .stdout(stdout)
+            .build()
+            .runAsync();
+    long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+    while (!stdout.toString(StandardCharsets.UTF_8).contains("started")) {
+      assertThat(System.nanoTime()).isLessThan(deadline);
+      Thread.sleep(10);
+    }
+
+    result.cancel(true);
+
+    while (!closed.get()) {
+      assertThat(System.nanoTime()).isLessThan(deadline);
+      Thread.sleep(10);
+    }
+    assertThat(writtenAfterClose.get()).isFalse();
+    assertThat(stdout.toString(StandardCharsets.UTF_8)).isEqualTo("started\nterminated\n");
+  }
+
+  @Test
+  public void stdoutLines() throws Exception {
+    List<String> lines = new ArrayList<>();
+    int exitCode =
+        CommandLineTask.builder()
+            .args("bash")
+            .arg("-c")
+            .arg("for i in $(seq 1 10000); do echo \"line $i\"; done")
+            .stdoutLines(line -> lines.add(line.toString()))
+            .build()
+            .run();
+    assertThat(exitCode).isEqualTo(0);
+    assertThat(lines).hasSize(10000);
+    assertThat(lines.get(0)).isEqualTo("line 1");
+    assertThat(lines.get(9999)).isEqualTo("line 10000");
+  }
+
+  @Test
+  public void outputFiles() throws Exception {
+    File stdout = File.createTempFile("stdout", ".txt");
+    File stderr = File.createTempFile("stderr", ".txt");
+    try {
+      int exitCode =
+          CommandLineTask.builder()
+              .args("bash")
+              .arg("-c")
+              .arg("echo out; echo err >&2")
+              .stdoutFile(stdout)
+              .stderrFile(stderr)
+              .build()
+              .run();
+      assertThat(exitCode).isEqualTo(0);
+      assertThat(Files.readString(stdout.toPath())).isEqualTo("out\n");
+      assertThat(Files.readString(stderr.toPath())).isEqualTo("err\n");
+    } finally {
+      stdout.delete();
+      stderr.delete();
+    }
+  }
+
+  @Test
+  public void environment() throws Exception {
+    for (int i = 0; i < 2; i++) {
+      String value = "value " + i;
+      try (ByteArrayOutputStream stdout = new ByteArrayOutputStream()) {
+        CommandLineTask.builder(new File("/tmp"))
+            .args("bash")
+            .arg("-c")
+            .arg("echo \"$TASK_VARIABLE|$PWD|$PATH\"")
+            .environmentVar("TASK_VARIABLE", value)
+            .stdout(stdout)
+            .build()
+            .run();
+        assertThat(stdout.toString(StandardCharsets.UTF_8).trim())
+            .isEqualTo(value + "|/tmp|" + EnvironmentUtil.getEnvironmentMap().get("PATH"));
+      }
+    }
+  }
 }
@@ -0,0 +1,106 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.async.process;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.idea.async.process.LineOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link LineOutputStream}. */
+@RunWith(JUnit4.class)
+public class LineOutputStreamTest {
+
+  @Test
+  public void splitsLines() throws IOException {
+    List<String> lines = new ArrayList<>();
+    try (LineOutputStream stream = collectingTo(lines)) {
+      stream.write("first\nsecond\r\n\nlast".getBytes(UTF_8));
+    }
+    assertThat(lines).containsExactly("first", "second", "", "last").inOrder();
+  }
+
+  @Test
+  public void decodesCharactersSplitAcrossWrites() throws IOException {
+    List<String> lines = new ArrayList<>();
+    byte[] bytes = "grüße\n€\n".getBytes(UTF_8);
+    try (LineOutputStream stream = collectingTo(lines)) {
+      for (byte b : bytes) {
+        stream.write(b);
+      }
+    }
+    assertThat(lines).containsExactly("grüße", "€").inOrder();
+  }
+
+  @Test
+  public void handlesLinesLongerThanBuffer() throws IOException {
+    List<String> lines = new ArrayList<>();
+    String longLine = "x".repeat(100_000);
+    try (LineOutputStream stream = collectingTo(lines)) {
+      stream.write((longLine + "\nshort\n" + longLine).getBytes(UTF_8));
+    }
+    assertThat(lines).containsExactly(longLine, "short", longLine).inOrder();
+  }
+
+  @Test
+  public void decodesSurrogatePairAtBufferBoundary() throws IOException {
+    List<String> lines = new ArrayList<>();
+    // one char is left in the 8192 char buffer for the two chars of U+1F600
+    String line = "x".repeat(8191) + "\uD83D\uDE00";
+    try (LineOutputStream stream = collectingTo(lines)) {
+      stream.write((line + "\n" + line).getBytes(UTF_8));
+    }
+    assertThat(lines).containsExactly(line, line).inOrder();
+  }
+
+  @Test
+  public void passesReusedViews() throws IOException {
+    List<CharSequence> views = new ArrayList<>();
+    List<Integer> lengths = new ArrayList<>();
+    try (LineOutputStream stream =
+        new LineOutputStream(
+            UTF_8,
+            line -> {
+              views.add(line);
+              lengths.add(line.length());
+            })) {
+      stream.write("a\nbc\ndef\n".getBytes(UTF_8));
+    }
+    assertThat(lengths).containsExactly(1, 2, 3).inOrder();
+    assertThat(views.get(0)).isSameInstanceAs(views.get(2));
+  }
+
+  @Test
+  public void rejectsWritesAfterClose() throws IOException {
+    LineOutputStream stream = new LineOutputStream(UTF_8, line -> {});
+    stream.close();
+    Assert.assertThrows(IOException.class, () -> stream.write(1));
+  }
+
+  private static LineOutputStream collectingTo(List<String> lines) {
+    return new LineOutputStream(UTF_8, line -> lines.add(line.toString()));
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * This file is based on Bazel plugin for IntelliJ by The Bazel Authors, licensed under Apache-2.0;
+ * It was modified by JetBrains s.r.o. and contributors
+ *
+ * Copyright 2024 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.common.async.process;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+
+import com.google.idea.async.process.CapturedOutput;
+import com.google.idea.async.process.CommandLineTask;
+import com.google.idea.async.process.OutputCapture;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link OutputCapture}. */
+@RunWith(JUnit4.class)
+public class OutputCaptureTest {
+
+  private static final String CONTENT = "first line\nsecond line\nthird line\n";
+
+  @Test
+  public void keepsSmallOutputInMemory() throws IOException {
+    OutputCapture capture = OutputCapture.create(1024);
+    capture.write(CONTENT.getBytes(UTF_8));
+    capture.close();
+
+    try (CapturedOutput output = capture.getOutput()) {
+      assertThat(output.isSpilled()).isFalse();
+      assertThat(output.size()).isEqualTo((long) CONTENT.length());
+      assertThat(read(output)).isEqualTo(CONTENT);
+      assertThat(decode(output.asByteBuffer())).isEqualTo(CONTENT);
+    }
+  }
+
+  @Test
+  public void spillsOutputBeyondMemoryLimit() throws IOException {
+    OutputCapture capture = OutputCapture.create(15);
+    for (byte b : CONTENT.getBytes(UTF_8)) {
+      capture.write(b);
+    }
+    capture.close();
+
+    try (CapturedOutput output = capture.getOutput()) {
+      assertThat(output.isSpilled()).isTrue();
+      assertThat(output.size()).isEqualTo((long) CONTENT.length());
+      assertThat(read(output)).isEqualTo(CONTENT);
+      assertThat(decode(output.asByteBuffer())).isEqualTo(CONTENT);
+      try (Stream<String> lines = output.lines(UTF_8)) {
+        assertThat(lines.collect(toList()))
+            .containsExactly("first line", "second line", "third line")
+            .inOrder();
+      }
+    }
+  }
+
+  @Test
+  public void outputIsOnlyAvailableWhenClosed() throws IOException {
+    OutputCapture capture = OutputCapture.create();
+    capture.write(1);
+
+    Assert.assertThrows(IllegalStateException.class, capture::getOutput);
+    capture.close();
+    Assert.assertThrows(IOException.class, () -> capture.write(1));
+  }
+
+  @Test
+  public void capturesProcessOutput() throws Exception {
+    OutputCapture capture = OutputCapture.create(1000);
+    int exitCode =
+        CommandLineTask.builder()
+            .args("bash")
+            .arg("-c")
+            .arg("for i in $(seq 1 1000); do echo \"line $i\"; done")
+            .stdout(capture)
+            .build()
+            .run();
+
+    assertThat(exitCode).isEqualTo(0);
+    try (CapturedOutput output = capture.getOutput();
+        Stream<String> lines = output.lines(UTF_8)) {
+      assertThat(output.isSpilled()).isTrue();
+      List<String> list = lines.collect(toList());
+      assertThat(list).hasSize(1000);
+      assertThat(list.get(999)).isEqualTo("line 1000");
+    }
+  }
+
+  private static String read(CapturedOutput output) throws IOException {
+    try (InputStream stream = output.openStream()) {
+      return new String(stream.readAllBytes(), UTF_8);
+    }
+  }
+
+  private static String decode(ByteBuffer buffer) {
+    return UTF_8.decode(buffer).toString();
+  }
+}